@@ -1,82 +1,231 @@
 package com.banking;
 
 /**
- * Account Manager for handling bank account operations
+ * Account Manager for handling bank account operations.
+ * Balances and limits are held as long paise and updated with Money
+ * arithmetic, so postings and interest are exact; amounts are converted
+ * from rupees once, on the way in.
  */
 public class AccountManager {
     
-    private double balance;
+    private static final long MAX_DEPOSIT_MINOR = 1000000 * Money.SCALE;
+    
+    private long balance; // paise
     private String accountType;
-    private double overdraftLimit;
+    private ProductPolicy policy;
+    private final ProductCatalog catalog;
+    private long overdraftLimit; // paise
     private Calculator calculator;
     private int transactionCount;
     private boolean isActive;
+    private TransactionHistory history;
+    private ChangeFeed feed;
+    private long feedAccountNumber;
     
     public AccountManager(String accountType, double initialBalance) {
+        this(accountType, initialBalance, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Creates an account whose rules come from the given product catalog
+     */
+    public AccountManager(String accountType, double initialBalance, ProductCatalog catalog) {
         if (initialBalance < 0) {
             throw new IllegalArgumentException("Initial balance cannot be negative");
         }
         
         this.accountType = accountType;
-        this.balance = initialBalance;
+        this.catalog = catalog;
+        this.policy = catalog.resolve(accountType);
+        this.balance = Money.ofRupees(initialBalance);
         this.calculator = new Calculator();
         this.transactionCount = 0;
         this.isActive = true;
-        
-        // Set overdraft limit based on account type
-        if (accountType.equals("Premium")) {
-            this.overdraftLimit = 50000;
-        } else if (accountType.equals("Savings")) {
-            this.overdraftLimit = 0;
-        } else {
-            this.overdraftLimit = 10000;
-        }
+        this.overdraftLimit = policy.getOverdraftLimitMinor();
     }
     
     /**
      * Deposits amount into account
      */
     public boolean deposit(double amount) {
+        return deposit(amount, PostingType.DEPOSIT);
+    }
+    
+    private boolean deposit(double amount, byte postingType) {
+        int code = tryDeposit(amount, postingType);
+        if (code == ResultCode.LIMIT_EXCEEDED) {
+            throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+        }
+        return succeeded(code);
+    }
+    
+    /**
+     * Deposits amount into account, reporting every outcome as a code instead of throwing
+     * @return ResultCode.POSTED, REJECTED for a non-positive amount, LIMIT_EXCEEDED
+     *         above 10 lakhs, ACCOUNT_INACTIVE, or INVALID for NaN
+     */
+    public int tryDeposit(double amount) {
+        return tryDeposit(amount, PostingType.DEPOSIT);
+    }
+    
+    private int tryDeposit(double amount, byte postingType) {
         if (!isActive) {
-            throw new IllegalStateException("Account is not active");
+            return ResultCode.ACCOUNT_INACTIVE;
         }
         
         if (amount <= 0) {
-            return false;
+            return ResultCode.REJECTED;
         }
         
         if (amount > 1000000) {
-            throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+            return ResultCode.LIMIT_EXCEEDED;
+        }
+        
+        if (amount != amount) {
+            return ResultCode.INVALID;
         }
         
-        balance += amount;
+        long minor = Money.ofRupees(amount);
+        balance = Money.add(balance, minor);
         transactionCount++;
-        return true;
+        record(postingType, minor);
+        return ResultCode.POSTED;
     }
     
     /**
      * Withdraws amount from account
      */
     public boolean withdraw(double amount) {
+        return withdraw(amount, PostingType.WITHDRAWAL);
+    }
+    
+    private boolean withdraw(double amount, byte postingType) {
+        int code = tryWithdraw(amount, postingType);
+        if (code == ResultCode.LIMIT_EXCEEDED) {
+            throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+        }
+        return succeeded(code);
+    }
+    
+    /**
+     * Withdraws amount from account, reporting every outcome as a code instead of throwing
+     * @return ResultCode.POSTED, REJECTED for a non-positive amount, insufficient
+     *         funds or an amount too large to hold in paise, LIMIT_EXCEEDED above
+     *         the product's withdrawal cap, ACCOUNT_INACTIVE, or INVALID for NaN
+     */
+    public int tryWithdraw(double amount) {
+        return tryWithdraw(amount, PostingType.WITHDRAWAL);
+    }
+    
+    private int tryWithdraw(double amount, byte postingType) {
         if (!isActive) {
-            throw new IllegalStateException("Account is not active");
+            return ResultCode.ACCOUNT_INACTIVE;
         }
         
         if (amount <= 0) {
-            return false;
+            return ResultCode.REJECTED;
         }
         
-        if (amount > balance + overdraftLimit) {
-            return false;
+        if (!Money.isConvertible(amount)) {
+            // Too large to hold in paise is more than any balance can cover
+            return amount != amount ? ResultCode.INVALID : ResultCode.REJECTED;
         }
         
-        if (accountType.equals("Savings") && amount > 50000) {
-            throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+        long minor = Money.ofRupees(amount);
+        if (minor - balance > overdraftLimit) {
+            return ResultCode.REJECTED;
+        }
+        
+        if (minor > policy.getWithdrawalCapMinor()) {
+            return ResultCode.LIMIT_EXCEEDED;
         }
         
-        balance -= amount;
+        balance = Money.subtract(balance, minor);
         transactionCount++;
-        return true;
+        record(postingType, minor);
+        return ResultCode.POSTED;
+    }
+    
+    /**
+     * Maps a code from the try methods back to the boolean API, throwing
+     * the exceptions the boolean methods have always thrown; callers handle
+     * LIMIT_EXCEEDED themselves since its message depends on the operation
+     */
+    private static boolean succeeded(int code) {
+        switch (code) {
+            case ResultCode.POSTED:
+                return true;
+            case ResultCode.REJECTED:
+                return false;
+            case ResultCode.ACCOUNT_INACTIVE:
+                throw new IllegalStateException("Account is not active");
+            default:
+                throw new ArithmeticException("Amount out of range");
+        }
+    }
+    
+    /**
+     * Applies a batch of deposits and withdrawals in order, with the same
+     * outcome per operation as calling deposit or withdraw one at a time.
+     * The active check, product limits and bookkeeping are done once per
+     * batch instead of once per operation.
+     * @param amounts amounts in paise
+     * @param opCodes PostingType.DEPOSIT or PostingType.WITHDRAWAL for each amount
+     * @return ResultCode per operation, packed 16 to a long (see ResultCode.unpack):
+     *         the code tryDeposit or tryWithdraw would return, or INVALID for an
+     *         unknown op code or a deposit that would overflow the balance
+     */
+    public long[] applyBatch(long[] amounts, byte[] opCodes) {
+        if (amounts.length != opCodes.length) {
+            throw new IllegalArgumentException("Amounts and op codes differ in length");
+        }
+        
+        long[] results = new long[(amounts.length + 15) >>> 4];
+        if (!isActive) {
+            for (int i = 0; i < amounts.length; i++) {
+                results[i >>> 4] |= (long) ResultCode.ACCOUNT_INACTIVE << ((i & 15) * ResultCode.PACKED_BITS);
+            }
+            return results;
+        }
+        
+        long current = balance;
+        long withdrawalCap = policy.getWithdrawalCapMinor();
+        boolean recording = history != null || feed != null;
+        int posted = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            long minor = amounts[i];
+            byte op = opCodes[i];
+            int status;
+            if (op != PostingType.DEPOSIT && op != PostingType.WITHDRAWAL) {
+                status = ResultCode.INVALID;
+            } else if (minor <= 0) {
+                status = ResultCode.REJECTED;
+            } else if (op == PostingType.DEPOSIT) {
+                if (minor > MAX_DEPOSIT_MINOR) {
+                    status = ResultCode.LIMIT_EXCEEDED;
+                } else {
+                    status = current > Long.MAX_VALUE - minor ? ResultCode.INVALID : ResultCode.POSTED;
+                }
+            } else if (minor - current > overdraftLimit) {
+                status = ResultCode.REJECTED;
+            } else {
+                status = minor > withdrawalCap ? ResultCode.LIMIT_EXCEEDED : ResultCode.POSTED;
+            }
+            
+            if (status == ResultCode.POSTED) {
+                current = op == PostingType.DEPOSIT ? current + minor : current - minor;
+                posted++;
+                if (recording) {
+                    balance = current;
+                    record(op, minor);
+                }
+            }
+            results[i >>> 4] |= (long) status << ((i & 15) * ResultCode.PACKED_BITS);
+        }
+        
+        balance = current;
+        transactionCount += posted;
+        return results;
     }
     
     /**
@@ -91,8 +240,13 @@ public class AccountManager {
             return false;
         }
         
-        if (this.withdraw(amount)) {
-            targetAccount.deposit(amount);
+        // Reject before withdrawing so the deposit leg cannot fail after the debit
+        if (amount > 1000000) {
+            throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+        }
+        
+        if (this.withdraw(amount, PostingType.TRANSFER_OUT)) {
+            targetAccount.deposit(amount, PostingType.TRANSFER_IN);
             return true;
         }
         
@@ -100,34 +254,46 @@ public class AccountManager {
     }
     
     /**
-     * Calculates monthly interest for savings account
+     * Transfers amount to another account, reporting every outcome as a code instead of throwing
+     * @return ResultCode.POSTED, ACCOUNT_INACTIVE if either account is closed,
+     *         LIMIT_EXCEEDED above 10 lakhs or this account's withdrawal cap,
+     *         otherwise the code of the debit leg
      */
-    public double calculateMonthlyInterest(double annualRate) {
-        if (annualRate < 0) {
-            throw new IllegalArgumentException("Interest rate cannot be negative");
+    public int tryTransfer(AccountManager targetAccount, double amount) {
+        if (!isActive || !targetAccount.isActive) {
+            return ResultCode.ACCOUNT_INACTIVE;
         }
         
-        if (!accountType.equals("Savings")) {
-            return 0.0;
+        if (amount <= 0) {
+            return ResultCode.REJECTED;
         }
         
-        if (balance < 0) {
-            return 0.0; // No interest on negative balance
+        if (amount > 1000000) {
+            return ResultCode.LIMIT_EXCEEDED;
         }
         
-        double monthlyRate = annualRate / 12 / 100;
-        double interest = balance * monthlyRate;
-        
-        return Math.round(interest * 100.0) / 100.0;
+        int code = tryWithdraw(amount, PostingType.TRANSFER_OUT);
+        if (code == ResultCode.POSTED) {
+            targetAccount.tryDeposit(amount, PostingType.TRANSFER_IN);
+        }
+        return code;
+    }
+    
+    /**
+     * Calculates monthly interest for savings account
+     */
+    public double calculateMonthlyInterest(double annualRate) {
+        return Money.toRupees(monthlyInterest(annualRate));
     }
     
     /**
      * Applies monthly interest to account
      */
     public void applyInterest(double annualRate) {
-        double interest = calculateMonthlyInterest(annualRate);
+        long interest = monthlyInterest(annualRate);
         if (interest > 0) {
-            balance += interest;
+            balance = Money.add(balance, interest);
+            record(PostingType.INTEREST, interest);
         }
     }
     
@@ -139,35 +305,22 @@ public class AccountManager {
             return 0.0;
         }
         
-        double charge = 0.0;
-        
-        if (accountType.equals("Savings")) {
-            if (balance < 10000) {
-                charge = 500;
-            }
-        } else if (accountType.equals("Premium")) {
-            charge = 1000;
-        } else {
-            if (balance < 5000) {
-                charge = 300;
-            }
-        }
-        
-        return charge;
+        return Money.toRupees(policy.maintenanceChargeFor(balance));
     }
     
     /**
      * Deducts maintenance charges from account
      */
     public boolean deductMaintenanceCharge() {
-        double charge = calculateMaintenanceCharge();
+        long charge = isActive ? policy.maintenanceChargeFor(balance) : 0;
         
         if (charge == 0) {
             return true;
         }
         
         if (balance >= charge) {
-            balance -= charge;
+            balance = Money.subtract(balance, charge);
+            record(PostingType.MAINTENANCE_CHARGE, charge);
             return true;
         }
         
@@ -178,15 +331,7 @@ public class AccountManager {
      * Checks if account qualifies for upgrade
      */
     public boolean canUpgrade() {
-        if (!accountType.equals("Savings")) {
-            return false;
-        }
-        
-        if (balance >= 100000 && transactionCount >= 20) {
-            return true;
-        }
-        
-        return false;
+        return policy.qualifiesForUpgrade(balance, transactionCount);
     }
     
     /**
@@ -197,9 +342,11 @@ public class AccountManager {
             return false;
         }
         
-        if (newType.equals("Premium")) {
+        if (policy.canUpgradeTo(newType)) {
             accountType = newType;
-            overdraftLimit = 50000;
+            policy = catalog.resolve(newType);
+            overdraftLimit = policy.getOverdraftLimitMinor();
+            publish(PostingType.UPGRADE, 0, policy.getCode());
             return true;
         }
         
@@ -214,7 +361,11 @@ public class AccountManager {
             return false; // Cannot close account with negative balance
         }
         
-        isActive = false;
+        // Closing a closed account changes nothing, so there is nothing to publish
+        if (isActive) {
+            isActive = false;
+            publish(PostingType.CLOSE, 0, 0);
+        }
         return true;
     }
     
@@ -233,7 +384,7 @@ public class AccountManager {
             return 0.0;
         }
         
-        double overdraftAmount = calculator.abs((int)balance);
+        double overdraftAmount = calculator.abs((int)(balance / Money.SCALE));
         double fee = 0.0;
         
         if (overdraftAmount > 0 && overdraftAmount <= 10000) {
@@ -249,7 +400,14 @@ public class AccountManager {
      * Gets current balance
      */
     public double getBalance() {
-        return Math.round(balance * 100.0) / 100.0;
+        return Money.toRupees(balance);
+    }
+    
+    /**
+     * Gets current balance in paise
+     */
+    public long getBalanceMinor() {
+        return balance;
     }
     
     /**
@@ -259,6 +417,36 @@ public class AccountManager {
         return accountType;
     }
     
+    /**
+     * Sets the history that records this account's postings, or null for none
+     */
+    public void setTransactionHistory(TransactionHistory history) {
+        this.history = history;
+    }
+    
+    /**
+     * Gets the transaction history, or null if none is set
+     */
+    public TransactionHistory getTransactionHistory() {
+        return history;
+    }
+    
+    /**
+     * Sets the feed that receives this account's mutations under the given
+     * account number, or null for none
+     */
+    public void setChangeFeed(ChangeFeed feed, long accountNumber) {
+        this.feed = feed;
+        this.feedAccountNumber = accountNumber;
+    }
+    
+    /**
+     * Gets the product rules the account follows
+     */
+    public ProductPolicy getPolicy() {
+        return policy;
+    }
+    
     /**
      * Gets transaction count
      */
@@ -277,13 +465,45 @@ public class AccountManager {
      * Gets overdraft limit
      */
     public double getOverdraftLimit() {
-        return overdraftLimit;
+        return Money.toRupees(overdraftLimit);
     }
     
     /**
      * Gets available balance including overdraft
      */
     public double getAvailableBalance() {
-        return balance + overdraftLimit;
+        return Money.toRupees(Money.add(balance, overdraftLimit));
+    }
+    
+    /**
+     * Calculates monthly interest in paise, rounded half to even
+     */
+    private long monthlyInterest(double annualRate) {
+        if (annualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        
+        if (!policy.isInterestEligible()) {
+            return 0;
+        }
+        
+        if (balance < 0) {
+            return 0; // No interest on negative balance
+        }
+        
+        return Money.applyRate(balance, annualRate / 12 / 100);
+    }
+    
+    private void record(byte postingType, long amountMinor) {
+        if (history != null) {
+            history.record(postingType, amountMinor, balance, 0);
+        }
+        publish(postingType, amountMinor, 0);
+    }
+    
+    private void publish(byte postingType, long amountMinor, long counterparty) {
+        if (feed != null) {
+            feed.append(feedAccountNumber, postingType, amountMinor, balance, counterparty);
+        }
     }
 }
@@ -0,0 +1,262 @@
+package com.banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds an AccountRegistry at startup from the latest snapshot and the
+ * journal records written after it. Snapshot records are mapped and
+ * loaded in parallel ranges. The journal tail is read once and each
+ * record is handed, in batches, to the worker that owns its registry
+ * shard, so each worker applies the records of its own shards in journal
+ * order.
+ *
+ * Recovery should run before a posting listener is set on the registry,
+ * so replayed postings are not journaled a second time.
+ */
+public final class AccountRecovery {
+    
+    // Replay batches: type, account, amount and counterparty per record
+    private static final int RECORD_LONGS = 4;
+    private static final int BATCH_RECORDS = 1024;
+    private static final int QUEUED_BATCHES = 16;
+    private static final long[] END_OF_JOURNAL = new long[0];
+    
+    private AccountRecovery() {
+    }
+    
+    /**
+     * Loads the latest snapshot in the directory, if any, and replays the journal tail
+     * @return journal sequence after the last record replayed
+     */
+    public static long recover(Path snapshotDirectory, Path journalFile, AccountRegistry registry,
+                               int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long fromSequence = 0;
+            Path snapshot = SnapshotWriter.findLatest(snapshotDirectory);
+            if (snapshot != null) {
+                fromSequence = loadSnapshot(snapshot, registry, threads, executor);
+            }
+            if (!Files.exists(journalFile)) {
+                return fromSequence;
+            }
+            return replayJournal(journalFile, fromSequence, registry, threads, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Registers every account in a snapshot file
+     * @return journal sequence the snapshot covers
+     */
+    static long loadSnapshot(Path snapshot, AccountRegistry registry, int threads,
+                             ExecutorService executor) throws IOException {
+        long[] header = AccountSnapshot.readHeader(snapshot);
+        long accountCount = header[1];
+        ProductCatalog catalog = registry.getCatalog();
+        long rangeSize = (accountCount + threads - 1) / threads;
+        
+        List<Future<Long>> results = new ArrayList<>();
+        for (long from = 0; from < accountCount; from += rangeSize) {
+            long start = from;
+            long end = Math.min(accountCount, from + rangeSize);
+            results.add(executor.submit(() -> {
+                AccountSnapshot.visit(snapshot, start, end,
+                        (accountNumber, typeCode, balanceMinor, overdraftLimitMinor, count, active) -> {
+                            ConcurrentAccountManager account = new ConcurrentAccountManager(
+                                    accountNumber, typeCode, balanceMinor, overdraftLimitMinor, count, active,
+                                    catalog);
+                            if (!registry.register(account)) {
+                                throw new IllegalStateException("Duplicate account in snapshot: "
+                                                                + accountNumber);
+                            }
+                        });
+                return end;
+            }));
+        }
+        awaitAll(results);
+        return header[0];
+    }
+    
+    /**
+     * Replays journal records from a sequence onwards, one worker per group of shards.
+     * The calling thread reads the journal and dispatches the records.
+     * @return journal sequence after the last record replayed
+     */
+    static long replayJournal(Path journalFile, long fromSequence, AccountRegistry registry,
+                              int threads, ExecutorService executor) throws IOException {
+        List<BlockingQueue<long[]>> queues = new ArrayList<>(threads);
+        List<Future<Long>> results = new ArrayList<>(threads);
+        for (int worker = 0; worker < threads; worker++) {
+            BlockingQueue<long[]> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+            queues.add(queue);
+            results.add(executor.submit(() -> applyAll(registry, queue)));
+        }
+        
+        Dispatcher dispatcher = new Dispatcher(registry, queues, results);
+        long end;
+        try {
+            end = PostingJournal.read(journalFile, fromSequence, dispatcher);
+            dispatcher.finish();
+        } catch (WorkerStopped e) {
+            // Surfaces the worker's own failure
+            awaitAll(results);
+            throw new IllegalStateException("Replay worker stopped", e);
+        }
+        awaitAll(results);
+        return Math.max(end, fromSequence);
+    }
+    
+    /**
+     * Applies batches from one worker's queue until the end of the journal
+     * @return number of records applied
+     */
+    private static long applyAll(AccountRegistry registry, BlockingQueue<long[]> queue)
+            throws InterruptedException {
+        long applied = 0;
+        while (true) {
+            long[] batch = queue.take();
+            if (batch == END_OF_JOURNAL) {
+                return applied;
+            }
+            for (int i = 0; i < batch.length; i += RECORD_LONGS) {
+                apply(registry, (byte) batch[i], batch[i + 1], batch[i + 2], batch[i + 3]);
+            }
+            applied += batch.length / RECORD_LONGS;
+        }
+    }
+    
+    private static void apply(AccountRegistry registry, byte type, long accountNumber,
+                              long amountMinor, long counterparty) {
+        ConcurrentAccountManager account;
+        if (type == PostingType.OPEN) {
+            // Attaching a listener re-announces existing accounts; their state is already replayed
+            if (registry.get(accountNumber) != null) {
+                return;
+            }
+            ProductCatalog catalog = registry.getCatalog();
+            account = new ConcurrentAccountManager(accountNumber, catalog.get((byte) counterparty).getName(),
+                                                   0, catalog);
+            if (!registry.register(account)) {
+                throw new IllegalStateException("Journal reopens account " + accountNumber);
+            }
+        } else {
+            account = registry.get(accountNumber);
+            if (account == null) {
+                throw new IllegalStateException("Journal refers to unknown account " + accountNumber);
+            }
+        }
+        account.replay(type, amountMinor, counterparty);
+    }
+    
+    /**
+     * Groups journal records into per-worker batches by registry shard
+     */
+    private static final class Dispatcher implements PostingJournal.RecordVisitor {
+        
+        private final AccountRegistry registry;
+        private final List<BlockingQueue<long[]>> queues;
+        private final List<Future<Long>> workers;
+        private final long[][] batches;
+        private final int[] filled;
+        
+        Dispatcher(AccountRegistry registry, List<BlockingQueue<long[]>> queues, List<Future<Long>> workers) {
+            this.registry = registry;
+            this.queues = queues;
+            this.workers = workers;
+            this.batches = new long[queues.size()][BATCH_RECORDS * RECORD_LONGS];
+            this.filled = new int[queues.size()];
+        }
+        
+        @Override
+        public void visit(long sequence, byte type, long accountNumber, long counterparty,
+                          long amountMinor, long balanceAfterMinor) {
+            int worker = registry.shardOf(accountNumber) % queues.size();
+            long[] batch = batches[worker];
+            int at = filled[worker];
+            batch[at] = type;
+            batch[at + 1] = accountNumber;
+            batch[at + 2] = amountMinor;
+            batch[at + 3] = counterparty;
+            filled[worker] = at + RECORD_LONGS;
+            if (filled[worker] == batch.length) {
+                hand(worker, batch);
+                batches[worker] = new long[batch.length];
+                filled[worker] = 0;
+            }
+        }
+        
+        /**
+         * Hands over the partly filled batches and tells every worker the journal has ended
+         */
+        void finish() {
+            for (int worker = 0; worker < queues.size(); worker++) {
+                if (filled[worker] > 0) {
+                    hand(worker, Arrays.copyOf(batches[worker], filled[worker]));
+                }
+                hand(worker, END_OF_JOURNAL);
+            }
+        }
+        
+        private void hand(int worker, long[] batch) {
+            try {
+                while (!queues.get(worker).offer(batch, 10, TimeUnit.MILLISECONDS)) {
+                    // A failed worker stops taking batches
+                    if (workers.get(worker).isDone()) {
+                        throw new WorkerStopped();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WorkerStopped();
+            }
+        }
+    }
+    
+    /**
+     * Ends dispatch when a worker can no longer take batches
+     */
+    private static final class WorkerStopped extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+    }
+    
+    private static List<Long> awaitAll(List<Future<Long>> results) throws IOException {
+        List<Long> values = new ArrayList<>(results.size());
+        try {
+            for (Future<Long> result : results) {
+                values.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Recovery interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Recovery failed", cause);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,356 @@
+package com.banking;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory registry of accounts keyed by their numeric account number.
+ * Accounts are spread over lock-striped shards, each an open-addressing
+ * table of primitive long keys, so lookups never box the key and
+ * readers of different shards never contend.
+ */
+public class AccountRegistry {
+    
+    /** Smallest account number, the lowest with 10 digits */
+    public static final long MIN_ACCOUNT_NUMBER = 1000000000L;
+    /** Largest account number, the highest with 16 digits */
+    public static final long MAX_ACCOUNT_NUMBER = 9999999999999999L;
+    
+    private static final long EMPTY = -1L; // account numbers are never negative
+    private static final int DEFAULT_SHARDS = 64;
+    private static final int DEFAULT_SHARD_CAPACITY = 1024;
+    
+    private final Shard[] shards;
+    private final int shardShift;
+    private final int shardMask;
+    private final ProductCatalog catalog;
+    private volatile PostingListener listener;
+    
+    public AccountRegistry() {
+        this(DEFAULT_SHARDS, DEFAULT_SHARD_CAPACITY);
+    }
+    
+    /**
+     * Creates a registry with the given number of shards (rounded up to a power of two)
+     * and initial slots per shard
+     */
+    public AccountRegistry(int shardCount, int initialShardCapacity) {
+        this(shardCount, initialShardCapacity, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Creates a registry whose accounts take their rules from the given product catalog
+     */
+    public AccountRegistry(int shardCount, int initialShardCapacity, ProductCatalog catalog) {
+        if (shardCount <= 0 || shardCount > (1 << 16)) {
+            throw new IllegalArgumentException("Shard count must be between 1 and 65536");
+        }
+        if (initialShardCapacity <= 0) {
+            throw new IllegalArgumentException("Shard capacity must be positive");
+        }
+        
+        int shardBits = 32 - Integer.numberOfLeadingZeros(shardCount - 1);
+        this.shards = new Shard[1 << shardBits];
+        this.shardShift = 64 - shardBits;
+        this.shardMask = shards.length - 1;
+        this.catalog = catalog;
+        int capacity = Integer.highestOneBit(Math.max(2, initialShardCapacity - 1)) << 1;
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(capacity);
+        }
+    }
+    
+    /**
+     * Converts an account number string into its numeric key. A leading zero
+     * is refused, since "0123456789" and "123456789" would share one key.
+     * @throws IllegalArgumentException if the number is not 10 to 16 digits
+     *         or starts with zero
+     */
+    public static long parseAccountNumber(String accountNumber) {
+        if (!TransactionValidator.hasAccountNumberFormat(accountNumber)) {
+            throw new IllegalArgumentException("Invalid account number");
+        }
+        if (accountNumber.charAt(0) == '0') {
+            throw new IllegalArgumentException("Account number cannot start with zero");
+        }
+        return Long.parseLong(accountNumber);
+    }
+    
+    /**
+     * Opens a new account under the given number
+     * @return the new account, or null if the number is already taken
+     */
+    public ConcurrentAccountManager open(long accountNumber, String accountType, double initialBalance) {
+        checkAccountNumber(accountNumber);
+        ConcurrentAccountManager account =
+                new ConcurrentAccountManager(accountNumber, accountType, initialBalance, catalog);
+        return register(account) ? account : null;
+    }
+    
+    /**
+     * Registers an existing account under its account number. The account
+     * takes the registry's listener if it has none, and its listener is sent
+     * an OPEN posting before the account becomes visible, so the OPEN
+     * precedes every other posting made through the registry.
+     * @return false if an account with that number is already registered
+     * @throws IllegalArgumentException if the account number is not 10 to 16 digits
+     */
+    public boolean register(ConcurrentAccountManager account) {
+        long accountNumber = account.getAccountNumber();
+        checkAccountNumber(accountNumber);
+        long hash = mix(accountNumber);
+        // Runs under the shard's write lock, so a concurrent setPostingListener
+        // either finds the account in the shard or is seen here
+        Runnable announce = () -> {
+            PostingListener current = listener;
+            account.announce(account.getPostingListener() == null ? current : null);
+        };
+        if (!shardFor(hash).putIfAbsent(accountNumber, hash, account, announce)) {
+            return false;
+        }
+        
+        PostingListener current = account.getPostingListener();
+        if (current != null) {
+            current.flush();
+        }
+        return true;
+    }
+    
+    /**
+     * Looks up an account, returning null if it is not registered
+     */
+    public ConcurrentAccountManager get(long accountNumber) {
+        long hash = mix(accountNumber);
+        return shardFor(hash).get(accountNumber, hash);
+    }
+    
+    /**
+     * Closes a registered account
+     * @return false if the account is unknown or cannot be closed
+     */
+    public boolean close(long accountNumber) {
+        ConcurrentAccountManager account = get(accountNumber);
+        if (account == null) {
+            return false;
+        }
+        return account.closeAccount();
+    }
+    
+    /**
+     * Sets the posting listener for every registered account and for accounts
+     * registered later. The listener is sent an OPEN posting with the current
+     * balance of every account already registered, ahead of that account's
+     * later postings, and of every account registered later.
+     */
+    public void setPostingListener(PostingListener listener) {
+        this.listener = listener;
+        boolean[] announced = new boolean[1];
+        for (Shard shard : shards) {
+            shard.forEach((accountNumber, account) -> {
+                if (listener == null) {
+                    account.setPostingListener(null);
+                } else {
+                    account.announce(listener);
+                    announced[0] = true;
+                }
+            });
+        }
+        if (announced[0]) {
+            listener.flush();
+        }
+    }
+    
+    /**
+     * Gets number of registered accounts
+     */
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size();
+        }
+        return total;
+    }
+    
+    /**
+     * Gets the product catalog used for accounts opened here
+     */
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+    
+    /**
+     * Gets number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+    
+    /**
+     * Gets the shard an account number belongs to
+     */
+    public int shardOf(long accountNumber) {
+        return (int) (mix(accountNumber) >>> shardShift) & shardMask;
+    }
+    
+    /**
+     * Visits every account in one shard. The shard is read-locked for the
+     * duration of the visit, so inserts into that shard wait until it returns.
+     */
+    public void forEachInShard(int shardIndex, AccountVisitor visitor) {
+        if (shardIndex < 0 || shardIndex >= shards.length) {
+            throw new IllegalArgumentException("Invalid shard index");
+        }
+        shards[shardIndex].forEach(visitor);
+    }
+    
+    /**
+     * Callback for shard iteration
+     */
+    public interface AccountVisitor {
+        void visit(long accountNumber, ConcurrentAccountManager account);
+    }
+    
+    private static void checkAccountNumber(long accountNumber) {
+        if (accountNumber < MIN_ACCOUNT_NUMBER || accountNumber > MAX_ACCOUNT_NUMBER) {
+            throw new IllegalArgumentException("Account number must have 10 to 16 digits");
+        }
+    }
+    
+    private Shard shardFor(long hash) {
+        // The mask keeps a single-shard registry (shift of 64) in range
+        return shards[(int) (hash >>> shardShift) & shardMask];
+    }
+    
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+    
+    /**
+     * One lock stripe: a linear-probing table resized at half occupancy
+     */
+    private static final class Shard {
+        
+        private final StampedLock lock = new StampedLock();
+        private long[] keys;
+        private ConcurrentAccountManager[] values;
+        private int count;
+        
+        Shard(int capacity) {
+            keys = newKeys(capacity);
+            values = new ConcurrentAccountManager[capacity];
+        }
+        
+        ConcurrentAccountManager get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            ConcurrentAccountManager found = find(keys, values, key, hash);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+            
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        /**
+         * Inserts the value if the key is absent, running beforePublish once
+         * the insert is certain but before the value becomes visible
+         */
+        boolean putIfAbsent(long key, long hash, ConcurrentAccountManager value, Runnable beforePublish) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int slot = (int) hash & mask;
+                while (keys[slot] != EMPTY) {
+                    if (keys[slot] == key) {
+                        return false;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                
+                beforePublish.run();
+                values[slot] = value;
+                keys[slot] = key;
+                count++;
+                if (count * 2 > keys.length) {
+                    resize();
+                }
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return count;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        void forEach(AccountVisitor visitor) {
+            long stamp = lock.readLock();
+            try {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != EMPTY) {
+                        visitor.visit(keys[i], values[i]);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        private void resize() {
+            long[] newKeys = newKeys(keys.length * 2);
+            ConcurrentAccountManager[] newValues = new ConcurrentAccountManager[newKeys.length];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    int slot = (int) mix(keys[i]) & mask;
+                    while (newKeys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newKeys[slot] = keys[i];
+                    newValues[slot] = values[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+        
+        private static ConcurrentAccountManager find(long[] keys, ConcurrentAccountManager[] values,
+                                                     long key, long hash) {
+            // Arrays may be torn or stale under an optimistic read; the caller validates
+            if (keys.length != values.length) {
+                return null;
+            }
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long candidate = keys[slot];
+                if (candidate == key) {
+                    return values[slot];
+                }
+                if (candidate == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+        
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
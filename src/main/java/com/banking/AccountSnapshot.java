@@ -0,0 +1,238 @@
+package com.banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Point-in-time image of all account state, consistent with a posting
+ * journal up to a sequence number. The image is kept in a
+ * ColumnarAccountStore and is brought forward by replaying journal records,
+ * so a new snapshot never has to read or pause the live accounts.
+ *
+ * On disk a snapshot is a fixed header followed by one fixed-size record
+ * per account. Files are written under a temporary name and moved into
+ * place, so a reader only ever sees complete snapshots.
+ */
+public class AccountSnapshot {
+    
+    // Header layout: magic, version, journal sequence, account count
+    private static final int MAGIC = 0x41534E50; // "ASNP"
+    private static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    
+    // Record layout: account, balance, overdraft limit, transaction count, type, active
+    public static final int RECORD_SIZE = 32;
+    private static final int ACCOUNT_OFFSET = 0;
+    private static final int BALANCE_OFFSET = 8;
+    private static final int OVERDRAFT_OFFSET = 16;
+    private static final int TRANSACTIONS_OFFSET = 24;
+    private static final int TYPE_OFFSET = 28;
+    private static final int ACTIVE_OFFSET = 29;
+    
+    private static final int WINDOW_RECORDS = 1 << 20;
+    private static final int WRITE_BUFFER_RECORDS = 8192;
+    
+    private final ColumnarAccountStore accounts;
+    private long journalSequence;
+    
+    /**
+     * Creates an empty snapshot at the start of the journal
+     */
+    public AccountSnapshot() {
+        this(new ColumnarAccountStore(), 0);
+    }
+    
+    /**
+     * Creates an empty snapshot whose type codes come from the given product catalog
+     */
+    public AccountSnapshot(ProductCatalog catalog) {
+        this(new ColumnarAccountStore(1024, catalog), 0);
+    }
+    
+    /**
+     * Wraps account state that reflects every journal record below the given sequence
+     */
+    public AccountSnapshot(ColumnarAccountStore accounts, long journalSequence) {
+        if (journalSequence < 0) {
+            throw new IllegalArgumentException("Journal sequence cannot be negative");
+        }
+        this.accounts = accounts;
+        this.journalSequence = journalSequence;
+    }
+    
+    /**
+     * Applies journal records from this snapshot's sequence up to (not including)
+     * the given one, stopping early at the end of the valid records
+     * @return number of records applied
+     */
+    public long catchUp(Path journalFile, long toSequence) throws IOException {
+        long from = journalSequence;
+        journalSequence = PostingJournal.read(journalFile, from, toSequence,
+                (sequence, type, accountNumber, counterparty, amountMinor, balanceAfterMinor) ->
+                        accounts.applyPosting(type, accountNumber, amountMinor, counterparty,
+                                              balanceAfterMinor));
+        return journalSequence - from;
+    }
+    
+    /**
+     * Writes the snapshot to a file, replacing it atomically
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * RECORD_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(journalSequence).putLong(accounts.size());
+            for (int i = 0; i < accounts.size(); i++) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(buffer, out);
+                }
+                int offset = buffer.position();
+                buffer.putLong(offset + ACCOUNT_OFFSET, accounts.getAccountNumber(i));
+                buffer.putLong(offset + BALANCE_OFFSET, accounts.getBalanceMinor(i));
+                buffer.putLong(offset + OVERDRAFT_OFFSET, accounts.getOverdraftLimitMinor(i));
+                buffer.putInt(offset + TRANSACTIONS_OFFSET, accounts.getTransactionCount(i));
+                buffer.put(offset + TYPE_OFFSET, accounts.getTypeCode(i));
+                buffer.put(offset + ACTIVE_OFFSET, (byte) (accounts.isActive(i) ? 1 : 0));
+                buffer.putShort(offset + ACTIVE_OFFSET + 1, (short) 0);
+                buffer.position(offset + RECORD_SIZE);
+            }
+            drain(buffer, out);
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Loads a snapshot file into memory, mapping it one window at a time
+     */
+    public static AccountSnapshot load(Path file) throws IOException {
+        return load(file, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Loads a snapshot whose type codes come from the given product catalog
+     */
+    public static AccountSnapshot load(Path file, ProductCatalog catalog) throws IOException {
+        long[] journalSequence = new long[1];
+        ColumnarAccountStore[] accounts = new ColumnarAccountStore[1];
+        visit(file, 0, Long.MAX_VALUE, new HeaderVisitor() {
+            @Override
+            public void header(long sequence, long accountCount) {
+                journalSequence[0] = sequence;
+                accounts[0] = new ColumnarAccountStore((int) Math.max(1, accountCount), catalog);
+            }
+            
+            @Override
+            public void visit(long accountNumber, byte typeCode, long balanceMinor,
+                              long overdraftLimitMinor, int transactionCount, boolean active) {
+                accounts[0].add(accountNumber, typeCode, balanceMinor, overdraftLimitMinor,
+                                transactionCount, active);
+            }
+        });
+        return new AccountSnapshot(accounts[0], journalSequence[0]);
+    }
+    
+    /**
+     * Reads the journal sequence and account count of a snapshot file
+     * @return {journal sequence, account count}
+     */
+    public static long[] readHeader(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(in);
+        }
+    }
+    
+    /**
+     * Visits the account records with index in [from, to) of a snapshot file
+     * directly from the mapped file, without building an in-memory image
+     */
+    public static void visit(Path file, long from, long to, RecordVisitor visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] header = readHeader(in);
+            if (visitor instanceof HeaderVisitor) {
+                ((HeaderVisitor) visitor).header(header[0], header[1]);
+            }
+            
+            long index = Math.max(0, from);
+            long end = Math.min(to, header[1]);
+            while (index < end) {
+                long windowRecords = Math.min(WINDOW_RECORDS, end - index);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY,
+                                                 HEADER_SIZE + index * RECORD_SIZE,
+                                                 windowRecords * RECORD_SIZE);
+                for (int i = 0; i < windowRecords; i++) {
+                    int offset = i * RECORD_SIZE;
+                    visitor.visit(window.getLong(offset + ACCOUNT_OFFSET), window.get(offset + TYPE_OFFSET),
+                                  window.getLong(offset + BALANCE_OFFSET),
+                                  window.getLong(offset + OVERDRAFT_OFFSET),
+                                  window.getInt(offset + TRANSACTIONS_OFFSET),
+                                  window.get(offset + ACTIVE_OFFSET) != 0);
+                }
+                index += windowRecords;
+            }
+        }
+    }
+    
+    /**
+     * Gets the account state held by this snapshot
+     */
+    public ColumnarAccountStore getAccounts() {
+        return accounts;
+    }
+    
+    /**
+     * Gets the first journal sequence not reflected in this snapshot
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+    
+    /**
+     * Callback for snapshot records
+     */
+    public interface RecordVisitor {
+        void visit(long accountNumber, byte typeCode, long balanceMinor, long overdraftLimitMinor,
+                   int transactionCount, boolean active);
+    }
+    
+    /**
+     * Record visitor that is also told the header before the first record
+     */
+    private interface HeaderVisitor extends RecordVisitor {
+        void header(long journalSequence, long accountCount);
+    }
+    
+    private static long[] readHeader(FileChannel in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (in.read(header, header.position()) < 0) {
+                throw new IOException("Truncated snapshot header");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a snapshot file");
+        }
+        long journalSequence = header.getLong();
+        long accountCount = header.getLong();
+        if (in.size() != HEADER_SIZE + accountCount * RECORD_SIZE) {
+            throw new IOException("Snapshot size does not match its header");
+        }
+        return new long[] {journalSequence, accountCount};
+    }
+    
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
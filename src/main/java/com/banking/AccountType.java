@@ -0,0 +1,31 @@
+package com.banking;
+
+/**
+ * Compact codes for the built-in account types, used where accounts are
+ * stored as primitive columns instead of objects. The rules for each type
+ * live in ProductCatalog.
+ */
+public final class AccountType {
+    
+    public static final byte REGULAR = 0;
+    public static final byte SAVINGS = 1;
+    public static final byte PREMIUM = 2;
+    
+    private AccountType() {
+    }
+    
+    /**
+     * Gets the code for an account type name. Unknown names follow the
+     * Regular rules, as they do in AccountManager.
+     */
+    public static byte codeOf(String accountType) {
+        return ProductCatalog.defaults().resolve(accountType).getCode();
+    }
+    
+    /**
+     * Gets the account type name for a code
+     */
+    public static String nameOf(byte code) {
+        return ProductCatalog.defaults().get(code).getName();
+    }
+}
@@ -0,0 +1,194 @@
+package com.banking;
+
+/**
+ * Amortization schedule of a fixed-EMI loan, computed on demand. No rows
+ * are stored: the balance after any month comes from the closed-form
+ * annuity balance, so any row is available in O(1) and rows are handed out
+ * through a reusable cursor or a visitor without allocating per row.
+ *
+ * Amounts are rounded to paise, and each row's closing balance is the next
+ * row's opening balance. The final row pays off whatever the rounded EMI
+ * leaves, so its closing balance is zero.
+ */
+public class AmortizationSchedule {
+    
+    private final double principal;
+    private final double monthlyRate;
+    private final double emi;
+    private final int tenureMonths;
+    
+    /**
+     * Creates the schedule for a loan
+     * @param annualRate Annual interest rate in percentage
+     * @throws IllegalArgumentException as LoanCalculator.calculateEMI does
+     */
+    public AmortizationSchedule(double principal, double annualRate, int tenureMonths) {
+        this(principal, annualRate, tenureMonths, LoanCalculator.emi(principal, annualRate, tenureMonths));
+    }
+    
+    /**
+     * Creates the schedule for a loan whose EMI is already calculated
+     */
+    AmortizationSchedule(double principal, double annualRate, int tenureMonths, double emi) {
+        this.emi = emi;
+        this.principal = principal;
+        this.monthlyRate = annualRate / (12 * 100);
+        this.tenureMonths = tenureMonths;
+    }
+    
+    /**
+     * Gets the monthly EMI
+     */
+    public double getEmi() {
+        return emi;
+    }
+    
+    /**
+     * Gets number of rows, one per month
+     */
+    public int getTenureMonths() {
+        return tenureMonths;
+    }
+    
+    /**
+     * Gets the balance after a number of payments, rounded to paise
+     */
+    public double getBalanceAfter(int paidMonths) {
+        checkMonth(paidMonths, 0);
+        return round(balanceAfter(paidMonths));
+    }
+    
+    /**
+     * Creates a cursor positioned before the first month
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Hands every row to the visitor, first month first
+     */
+    public void forEach(RowVisitor visitor) {
+        forEach(1, tenureMonths, visitor);
+    }
+    
+    /**
+     * Hands the rows of months from to to, inclusive, to the visitor
+     */
+    public void forEach(int from, int to, RowVisitor visitor) {
+        checkMonth(from, 1);
+        checkMonth(to, 1);
+        double opening = round(balanceAfter(from - 1));
+        for (int month = from; month <= to; month++) {
+            double closing = round(balanceAfter(month));
+            visitor.onRow(month, opening, round(opening * monthlyRate), round(opening - closing), closing);
+            opening = closing;
+        }
+    }
+    
+    /**
+     * Receives schedule rows
+     */
+    public interface RowVisitor {
+        void onRow(int month, double openingBalance, double interest, double principal, double closingBalance);
+    }
+    
+    /**
+     * Flyweight view of one schedule row
+     */
+    public final class Cursor {
+        
+        private int month;
+        private double opening;
+        private double closing;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Points the cursor at a month, 1 to the tenure
+         */
+        public Cursor at(int month) {
+            checkMonth(month, 1);
+            this.month = month;
+            opening = round(balanceAfter(month - 1));
+            closing = round(balanceAfter(month));
+            return this;
+        }
+        
+        /**
+         * Moves to the next month
+         * @return false if the cursor was already on the last month
+         */
+        public boolean next() {
+            if (month == tenureMonths) {
+                return false;
+            }
+            month++;
+            opening = month == 1 ? round(principal) : closing;
+            closing = round(balanceAfter(month));
+            return true;
+        }
+        
+        public int getMonth() {
+            return month;
+        }
+        
+        public double getOpeningBalance() {
+            return opening;
+        }
+        
+        public double getInterest() {
+            return round(opening * monthlyRate);
+        }
+        
+        public double getPrincipal() {
+            return round(opening - closing);
+        }
+        
+        public double getClosingBalance() {
+            return closing;
+        }
+    }
+    
+    /**
+     * Balance after paying the EMI for a number of months, unrounded
+     */
+    double balanceAfter(int paidMonths) {
+        return balanceAfter(principal, monthlyRate, emi, tenureMonths, paidMonths);
+    }
+    
+    /**
+     * Closed-form annuity balance P(1+r)^k - EMI((1+r)^k - 1)/r, zero once the loan is paid off
+     */
+    static double balanceAfter(double principal, double monthlyRate, double emi, int tenureMonths, int paidMonths) {
+        if (paidMonths == 0) {
+            return principal;
+        }
+        
+        if (paidMonths == tenureMonths) {
+            return 0.0;
+        }
+        
+        double remaining;
+        if (monthlyRate == 0) {
+            remaining = principal - emi * paidMonths;
+        } else {
+            double growth = Math.pow(1 + monthlyRate, paidMonths);
+            remaining = principal * growth - emi * (growth - 1) / monthlyRate;
+        }
+        
+        // The rounded EMI can overpay slightly on the last months
+        return Math.max(0, remaining);
+    }
+    
+    private void checkMonth(int month, int first) {
+        if (month < first || month > tenureMonths) {
+            throw new IllegalArgumentException("Invalid month");
+        }
+    }
+    
+    private static double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,141 @@
+package com.banking;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent cache of annuity factors r(1+r)^n / ((1+r)^n - 1), the EMI per
+ * rupee of principal, keyed by annual rate in basis points and tenure.
+ * A loan book uses only a few hundred distinct (rate, tenure) pairs, so
+ * caching turns the Math.pow in every quote into a table lookup. The table
+ * holds the growth term (1+r)^n itself, so callers can also evaluate other
+ * annuity formulas from it with their original rounding.
+ *
+ * The table is direct-mapped: each key hashes to one slot and a new key
+ * evicts whatever the slot held, which bounds the size without any
+ * bookkeeping on hits. Entries are immutable, so readers need no locks.
+ * Rates that are not a whole number of basis points are computed directly
+ * and never cached; a cached value is always identical to a computed one.
+ */
+public class AnnuityFactorCache {
+    
+    private final AtomicReferenceArray<Entry> table;
+    private final int shift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * Creates a cache holding up to capacity factors (rounded up to a power of two)
+     */
+    public AnnuityFactorCache(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        table = new AtomicReferenceArray<>(size);
+        shift = 64 - Integer.numberOfTrailingZeros(size);
+    }
+    
+    /**
+     * Gets the annuity factor for a positive rate
+     * @param annualRate Annual interest rate in percentage
+     * @param tenureMonths Loan tenure in months
+     */
+    public double factor(double annualRate, int tenureMonths) {
+        return factorOf(annualRate / (12 * 100), power(annualRate, tenureMonths));
+    }
+    
+    /**
+     * Gets the growth term (1+r)^n of the monthly rate over the tenure
+     * @param annualRate Annual interest rate in percentage
+     * @param tenureMonths Loan tenure in months
+     */
+    public double power(double annualRate, int tenureMonths) {
+        long basisPoints = Math.round(annualRate * 100);
+        if (basisPoints < 0 || basisPoints > Integer.MAX_VALUE || basisPoints / 100.0 != annualRate) {
+            misses.increment();
+            return computePower(annualRate, tenureMonths);
+        }
+        
+        long key = basisPoints << 32 | (tenureMonths & 0xFFFFFFFFL);
+        int index = shift == 64 ? 0 : (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        Entry entry = table.get(index);
+        if (entry != null && entry.key == key) {
+            hits.increment();
+            return entry.power;
+        }
+        
+        misses.increment();
+        double power = computePower(annualRate, tenureMonths);
+        if (entry != null) {
+            evictions.increment();
+        }
+        table.lazySet(index, new Entry(key, power));
+        return power;
+    }
+    
+    /**
+     * Computes the annuity factor without the cache
+     */
+    public static double compute(double annualRate, int tenureMonths) {
+        return factorOf(annualRate / (12 * 100), computePower(annualRate, tenureMonths));
+    }
+    
+    private static double computePower(double annualRate, int tenureMonths) {
+        return Math.pow(1 + annualRate / (12 * 100), tenureMonths);
+    }
+    
+    private static double factorOf(double monthlyRate, double power) {
+        return monthlyRate * power / (power - 1);
+    }
+    
+    /**
+     * Gets number of lookups served from the table
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Gets number of lookups that computed the growth term
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets number of entries replaced by a different key
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Gets hits as a fraction of all lookups, or 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+    
+    /**
+     * Gets number of slots in the table
+     */
+    public int capacity() {
+        return table.length();
+    }
+    
+    private static final class Entry {
+        
+        final long key;
+        final double power;
+        
+        Entry(long key, double power) {
+            this.key = key;
+            this.power = power;
+        }
+    }
+}
@@ -2,6 +2,12 @@ package com.banking;
 
 /**
  * Simple Calculator class for demonstration
+ *
+ * The array kernels apply one operation to whole primitive arrays. Their
+ * loops are plain counted loops over arrays with no calls or branches in
+ * the body, which is the shape the JIT auto-vectorises. The exact variants
+ * detect overflow with branch-free bit tests and only fall back to a
+ * scalar pass, to collect the offending indices, when one occurred.
  */
 public class Calculator {
     
@@ -56,4 +62,473 @@ public class Calculator {
         }
         return b;
     }
+    
+    /**
+     * Adds two arrays element by element into out
+     */
+    public void add(int[] a, int[] b, int[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+    
+    /**
+     * Adds two arrays element by element into out
+     */
+    public void add(long[] a, long[] b, long[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+    
+    /**
+     * Adds two arrays element by element into out
+     */
+    public void add(double[] a, double[] b, double[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+    
+    /**
+     * Subtracts b from a element by element into out
+     */
+    public void subtract(int[] a, int[] b, int[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+    
+    /**
+     * Subtracts b from a element by element into out
+     */
+    public void subtract(long[] a, long[] b, long[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+    
+    /**
+     * Subtracts b from a element by element into out
+     */
+    public void subtract(double[] a, double[] b, double[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+    
+    /**
+     * Multiplies two arrays element by element into out
+     */
+    public void multiply(int[] a, int[] b, int[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+    
+    /**
+     * Multiplies two arrays element by element into out
+     */
+    public void multiply(long[] a, long[] b, long[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+    
+    /**
+     * Multiplies two arrays element by element into out
+     */
+    public void multiply(double[] a, double[] b, double[] out) {
+        checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+    
+    /**
+     * Computes a * b + c element by element into out
+     */
+    public void multiplyAdd(long[] a, long[] b, long[] c, long[] out) {
+        checkLengths(a.length, b.length, out.length);
+        checkLengths(c.length, c.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i] + c[i];
+        }
+    }
+    
+    /**
+     * Computes a * b + c element by element into out, with a single rounding (Math.fma)
+     */
+    public void multiplyAdd(double[] a, double[] b, double[] c, double[] out) {
+        checkLengths(a.length, b.length, out.length);
+        checkLengths(c.length, c.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = Math.fma(a[i], b[i], c[i]);
+        }
+    }
+    
+    /**
+     * Writes the absolute value of each element into out.
+     * Integer.MIN_VALUE stays negative, as with Math.abs; see absExact.
+     */
+    public void abs(int[] a, int[] out) {
+        checkLengths(a.length, a.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = Math.abs(a[i]);
+        }
+    }
+    
+    /**
+     * Writes the absolute value of each element into out.
+     * Long.MIN_VALUE stays negative, as with Math.abs; see absExact.
+     */
+    public void abs(long[] a, long[] out) {
+        checkLengths(a.length, a.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = Math.abs(a[i]);
+        }
+    }
+    
+    /**
+     * Returns maximum element
+     * @throws IllegalArgumentException if the array is empty
+     */
+    public int max(int[] a) {
+        checkNotEmpty(a.length);
+        int max = a[0];
+        for (int i = 1; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+    
+    /**
+     * Returns maximum element
+     * @throws IllegalArgumentException if the array is empty
+     */
+    public long max(long[] a) {
+        checkNotEmpty(a.length);
+        long max = a[0];
+        for (int i = 1; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+    
+    /**
+     * Returns maximum element, or NaN if any element is NaN
+     * @throws IllegalArgumentException if the array is empty
+     */
+    public double max(double[] a) {
+        checkNotEmpty(a.length);
+        double max = a[0];
+        for (int i = 1; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+    
+    /**
+     * Sums the elements, widened to long so the total cannot overflow
+     */
+    public long sum(int[] a) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+    
+    /**
+     * Sums the elements
+     */
+    public long sum(long[] a) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+    
+    /**
+     * Sums the elements. The JIT will not reorder floating-point additions,
+     * so four independent partial sums are kept instead; the result may
+     * differ from a left-to-right sum in the last bits.
+     */
+    public double sum(double[] a) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        int i = 0;
+        for (; i + 3 < a.length; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+    
+    /**
+     * Adds two arrays into out, reporting elements whose sum overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int addExact(int[] a, int[] b, int[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        int flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            int r = a[i] + b[i];
+            flags |= (a[i] ^ r) & (b[i] ^ r);
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (((a[i] ^ out[i]) & (b[i] ^ out[i])) < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Adds two arrays into out, reporting elements whose sum overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int addExact(long[] a, long[] b, long[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        long flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            long r = a[i] + b[i];
+            flags |= (a[i] ^ r) & (b[i] ^ r);
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (((a[i] ^ out[i]) & (b[i] ^ out[i])) < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Subtracts b from a into out, reporting elements whose difference overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int subtractExact(int[] a, int[] b, int[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        int flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            int r = a[i] - b[i];
+            flags |= (a[i] ^ b[i]) & (a[i] ^ r);
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (((a[i] ^ b[i]) & (a[i] ^ out[i])) < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Subtracts b from a into out, reporting elements whose difference overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int subtractExact(long[] a, long[] b, long[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        long flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            long r = a[i] - b[i];
+            flags |= (a[i] ^ b[i]) & (a[i] ^ r);
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (((a[i] ^ b[i]) & (a[i] ^ out[i])) < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Multiplies two arrays into out, reporting elements whose product overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int multiplyExact(int[] a, int[] b, int[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        long flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            long r = (long) a[i] * b[i];
+            // Non-zero when the product does not survive narrowing to int
+            flags |= r ^ (int) r;
+            out[i] = (int) r;
+        }
+        if (flags == 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if ((long) a[i] * b[i] != out[i]) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Multiplies two arrays into out, reporting elements whose product overflowed.
+     * Overflowed elements hold the wrapped value; out must not be a or b.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int multiplyExact(long[] a, long[] b, long[] out, int[] overflows) {
+        checkLengths(a.length, b.length, out.length);
+        checkDistinct(out == a || out == b);
+        long flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            long r = a[i] * b[i];
+            // Non-zero when the high half is not the sign extension of the low half
+            flags |= Math.multiplyHigh(a[i], b[i]) ^ (r >> 63);
+            out[i] = r;
+        }
+        if (flags == 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (Math.multiplyHigh(a[i], b[i]) != (out[i] >> 63)) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Writes the absolute value of each element into out, reporting
+     * Integer.MIN_VALUE elements, whose absolute value does not fit.
+     * Those elements stay Integer.MIN_VALUE; out may be a.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int absExact(int[] a, int[] out, int[] overflows) {
+        checkLengths(a.length, a.length, out.length);
+        int flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            int r = Math.abs(a[i]);
+            flags |= r;
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Writes the absolute value of each element into out, reporting
+     * Long.MIN_VALUE elements, whose absolute value does not fit.
+     * Those elements stay Long.MIN_VALUE; out may be a.
+     * @param overflows receives the indices of overflowed elements, as many as fit
+     * @return number of overflowed elements
+     */
+    public int absExact(long[] a, long[] out, int[] overflows) {
+        checkLengths(a.length, a.length, out.length);
+        long flags = 0;
+        for (int i = 0; i < out.length; i++) {
+            long r = Math.abs(a[i]);
+            flags |= r;
+            out[i] = r;
+        }
+        if (flags >= 0) {
+            return 0;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] < 0) {
+                count = report(overflows, count, i);
+            }
+        }
+        return count;
+    }
+    
+    private static int report(int[] overflows, int count, int index) {
+        if (count < overflows.length) {
+            overflows[count] = index;
+        }
+        return count + 1;
+    }
+    
+    private static void checkLengths(int a, int b, int out) {
+        if (a != out || b != out) {
+            throw new IllegalArgumentException("Array lengths differ");
+        }
+    }
+    
+    private static void checkDistinct(boolean aliased) {
+        if (aliased) {
+            throw new IllegalArgumentException("Output array must not be an input");
+        }
+    }
+    
+    private static void checkNotEmpty(int length) {
+        if (length == 0) {
+            throw new IllegalArgumentException("Array is empty");
+        }
+    }
 }
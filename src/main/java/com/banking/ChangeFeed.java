@@ -0,0 +1,249 @@
+package com.banking;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Change-data-capture feed of account mutations. Each mutation is written
+ * as one fixed-size event into a bounded ring of primitive arrays; every
+ * subscriber reads the ring at its own offset, in batches, so downstream
+ * ledgers and caches see each balance change without re-reading accounts.
+ *
+ * Every event gets the next sequence number, and producers never wait
+ * for subscribers: they report postings while holding account claims, so
+ * blocking there would stall every thread touching those accounts. A
+ * subscriber that falls a whole ring behind is lapped instead. Slots are
+ * stamped like a seqlock, so a poll notices events overwritten before
+ * (or while) it read them, skips to the oldest event still in the ring
+ * and counts the skipped ones as lost. The gap is visible to the visitor
+ * as a jump in sequence numbers, and the subscriber can resynchronise
+ * from the accounts, as with UpgradeEligibilityTracker.
+ *
+ * Works as a PostingListener for ConcurrentAccountManager, and an
+ * AccountManager reports to it once setChangeFeed is called.
+ */
+public class ChangeFeed implements PostingListener {
+    
+    private final long[] accounts;
+    private final long[] amounts;
+    private final long[] balancesAfter;
+    private final long[] counterparties;
+    private final byte[] types;
+    // sequence + 1 once the slot's event is written, -(sequence + 1) while it is being written
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    
+    /**
+     * Creates a feed holding up to capacity unread events (rounded up to a power of two)
+     */
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        accounts = new long[size];
+        amounts = new long[size];
+        balancesAfter = new long[size];
+        counterparties = new long[size];
+        types = new byte[size];
+        published = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+    
+    @Override
+    public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                          long balanceAfterMinor, long counterparty) {
+        append(account.getAccountNumber(), type, amountMinor, balanceAfterMinor, counterparty);
+    }
+    
+    /**
+     * Appends one mutation, overwriting the oldest event once the ring is full
+     * @return sequence number of the event
+     */
+    public long append(long accountNumber, byte type, long amountMinor, long balanceAfterMinor,
+                       long counterparty) {
+        long sequence = claimed.getAndIncrement();
+        int index = (int) sequence & mask;
+        
+        // Waits only for a producer still writing this slot's previous lap
+        long previous = sequence < accounts.length ? 0 : sequence - accounts.length + 1;
+        while (!published.compareAndSet(index, previous, -(sequence + 1))) {
+            Thread.onSpinWait();
+        }
+        accounts[index] = accountNumber;
+        types[index] = type;
+        amounts[index] = amountMinor;
+        balancesAfter[index] = balanceAfterMinor;
+        counterparties[index] = counterparty;
+        published.lazySet(index, sequence + 1);
+        return sequence;
+    }
+    
+    /**
+     * Adds a subscriber that reads from the next event appended
+     * @param batchSize most events handed over per poll
+     */
+    public Subscriber subscribe(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return new Subscriber(batchSize, claimed.get());
+    }
+    
+    /**
+     * Gets the sequence the next appended event will have
+     */
+    public long getSequence() {
+        return claimed.get();
+    }
+    
+    /**
+     * Gets number of events the ring holds
+     */
+    public int capacity() {
+        return accounts.length;
+    }
+    
+    /**
+     * Receives events during a poll
+     */
+    public interface EventVisitor {
+        void onEvent(long sequence, long accountNumber, byte type, long amountMinor,
+                     long balanceAfterMinor, long counterparty);
+    }
+    
+    /**
+     * One reader of the feed with its own offset. A subscriber must only be
+     * polled by one thread at a time.
+     */
+    public final class Subscriber {
+        
+        private final int batchSize;
+        private volatile long offset;
+        private volatile long lost;
+        private volatile boolean closed;
+        
+        private Subscriber(int batchSize, long offset) {
+            this.batchSize = batchSize;
+            this.offset = offset;
+        }
+        
+        /**
+         * Hands the next batch of published events to the visitor, oldest first.
+         * If producers have lapped this subscriber, the overwritten events are
+         * skipped and counted in getLost; the next sequence handed over then
+         * jumps past them.
+         * @return number of events delivered
+         */
+        public int poll(EventVisitor visitor) {
+            if (closed) {
+                throw new IllegalStateException("Subscriber is closed");
+            }
+            
+            long next = offset;
+            int delivered = 0;
+            while (delivered < batchSize) {
+                int index = (int) next & mask;
+                long stamp = published.get(index);
+                if (stamp != next + 1) {
+                    if (stamp > next + 1 || stamp < -(next + 1)) {
+                        next = skipOverwritten(next);
+                        continue;
+                    }
+                    break;
+                }
+                
+                long accountNumber = accounts[index];
+                byte type = types[index];
+                long amountMinor = amounts[index];
+                long balanceAfterMinor = balancesAfter[index];
+                long counterparty = counterparties[index];
+                // The copy is only good if no producer started on the slot meanwhile
+                VarHandle.loadLoadFence();
+                if (published.get(index) != next + 1) {
+                    next = skipOverwritten(next);
+                    continue;
+                }
+                
+                visitor.onEvent(next, accountNumber, type, amountMinor, balanceAfterMinor, counterparty);
+                next++;
+                delivered++;
+            }
+            offset = next;
+            return delivered;
+        }
+        
+        /**
+         * Gets number of events overwritten before this subscriber could read them
+         */
+        public long getLost() {
+            return lost;
+        }
+        
+        /**
+         * Gets the sequence of the next event this subscriber will read
+         */
+        public long getOffset() {
+            return offset;
+        }
+        
+        /**
+         * Gets number of events appended but not yet read by this subscriber
+         */
+        public long getLag() {
+            return claimed.get() - offset;
+        }
+        
+        /**
+         * Stops reading
+         */
+        public void close() {
+            closed = true;
+        }
+        
+        /**
+         * Moves past events producers have overwritten, to the oldest one the ring may still hold
+         */
+        private long skipOverwritten(long next) {
+            long resume = Math.max(next + 1, claimed.get() - accounts.length);
+            lost += resume - next;
+            return resume;
+        }
+    }
+    
+    /**
+     * Subscriber stand-in that keeps every event in memory, for tests and
+     * in-process consumers
+     */
+    public static final class Recorder implements EventVisitor {
+        
+        private final List<long[]> events = new ArrayList<>();
+        
+        @Override
+        public synchronized void onEvent(long sequence, long accountNumber, byte type, long amountMinor,
+                                         long balanceAfterMinor, long counterparty) {
+            events.add(new long[] {sequence, accountNumber, type, amountMinor, balanceAfterMinor, counterparty});
+        }
+        
+        /**
+         * Gets the recorded events as {sequence, account, type, amount, balanceAfter, counterparty}
+         */
+        public synchronized List<long[]> getEvents() {
+            return Collections.unmodifiableList(new ArrayList<>(events));
+        }
+        
+        public synchronized int size() {
+            return events.size();
+        }
+        
+        public synchronized void clear() {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,1162 @@
+package com.banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Account Manager for accounts shared between many worker threads.
+ * Follows the same rules as AccountManager, but keeps the balance in minor
+ * units (paise) inside a single state word that is updated with
+ * compare-and-set loops instead of a lock.
+ * Transfers claim both accounts' state words in a global order, so a
+ * debit and its credit are applied together and cannot deadlock.
+ * Multi-leg journal entries validate optimistically against each
+ * account's state word and only claim the accounts to commit.
+ * Hot accounts that take deposits from many threads can opt in to
+ * striped deposits, which are folded into the state word whenever an
+ * operation needs the exact balance.
+ * Every applied mutation is reported to the optional PostingListener and
+ * recorded in the optional TransactionHistory while the account is still
+ * claimed, so each account's postings are seen in the order they applied.
+ */
+public class ConcurrentAccountManager {
+    
+    private static final VarHandle STATE;
+    private static final VarHandle TRANSACTION_COUNT;
+    private static final VarHandle STRIPED_DEPOSITS;
+    private static final VarHandle STRIPED_COUNT;
+    
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE = lookup.findVarHandle(ConcurrentAccountManager.class, "state", long.class);
+            TRANSACTION_COUNT = lookup.findVarHandle(ConcurrentAccountManager.class,
+                                                     "transactionCount", int.class);
+            STRIPED_DEPOSITS = lookup.findVarHandle(ConcurrentAccountManager.class,
+                                                    "stripedDeposits", LongAdder.class);
+            STRIPED_COUNT = lookup.findVarHandle(ConcurrentAccountManager.class,
+                                                 "stripedCount", LongAdder.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    // State word layout: balance in paise shifted left by FLAG_BITS, bit 0 = closed,
+    // bit 1 = claimed by a transfer (other writers wait until it is released)
+    private static final int FLAG_BITS = 2;
+    private static final long CLOSED = 1L;
+    private static final long CLAIMED = 2L;
+    
+    private static final AtomicLong LOCK_ORDER = new AtomicLong();
+    private static final Comparator<ConcurrentAccountManager> BY_LOCK_ORDER =
+            Comparator.comparingLong(account -> account.lockOrder);
+    
+    private static final int TRANSFER_OK = 0;
+    private static final int TRANSFER_REJECTED = 1;
+    private static final int TRANSFER_OVER_CAP = 2;
+    
+    private static final long MAX_CREDIT_MINOR = 1000000 * Money.SCALE;
+    private static final int ENTRY_OPTIMISTIC_ATTEMPTS = 8;
+    private static final EntryMetrics UNTRACKED = new EntryMetrics();
+    
+    private static final Calculator CALCULATOR = new Calculator();
+    
+    private final long accountNumber;
+    private final long lockOrder = LOCK_ORDER.getAndIncrement();
+    private volatile long state;
+    private volatile int transactionCount;
+    private final ProductCatalog catalog;
+    private volatile String accountType;
+    private volatile ProductPolicy policy;
+    private volatile long overdraftLimit;
+    private volatile PostingListener listener;
+    private volatile TransactionHistory history;
+    private volatile LongAdder stripedDeposits; // pending hot-account deposits, null unless enabled
+    private volatile LongAdder stripedCount; // hot-account deposits counted, set before stripedDeposits
+    
+    public ConcurrentAccountManager(String accountType, double initialBalance) {
+        this(0, accountType, initialBalance);
+    }
+    
+    public ConcurrentAccountManager(long accountNumber, String accountType, double initialBalance) {
+        this(accountNumber, accountType, initialBalance, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Creates an account whose rules come from the given product catalog
+     */
+    public ConcurrentAccountManager(long accountNumber, String accountType, double initialBalance,
+                                    ProductCatalog catalog) {
+        if (accountNumber < 0) {
+            throw new IllegalArgumentException("Account number cannot be negative");
+        }
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Initial balance cannot be negative");
+        }
+        
+        this.accountNumber = accountNumber;
+        this.catalog = catalog;
+        this.accountType = accountType;
+        this.policy = catalog.resolve(accountType);
+        this.state = toMinorUnits(initialBalance) << FLAG_BITS;
+        this.transactionCount = 0;
+        this.overdraftLimit = policy.getOverdraftLimitMinor();
+    }
+    
+    /**
+     * Recreates an account from saved state, e.g. a snapshot record.
+     * No rules are checked and no posting is reported.
+     */
+    ConcurrentAccountManager(long accountNumber, byte typeCode, long balanceMinor,
+                             long overdraftLimitMinor, int transactionCount, boolean active,
+                             ProductCatalog catalog) {
+        if (accountNumber < 0) {
+            throw new IllegalArgumentException("Account number cannot be negative");
+        }
+        
+        this.accountNumber = accountNumber;
+        this.catalog = catalog;
+        this.policy = catalog.get(typeCode);
+        this.accountType = policy.getName();
+        this.state = (balanceMinor << FLAG_BITS) | (active ? 0 : CLOSED);
+        this.transactionCount = transactionCount;
+        this.overdraftLimit = overdraftLimitMinor;
+    }
+    
+    /**
+     * Deposits amount into account
+     */
+    public boolean deposit(double amount) {
+        if (amount <= 0) {
+            checkActive(state);
+            return false;
+        }
+        
+        if (amount > 1000000) {
+            checkActive(state);
+            throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+        }
+        
+        long minor = toMinorUnits(amount);
+        long delta = minor << FLAG_BITS;
+        if (isObserved()) {
+            long current = claim();
+            long next = current;
+            try {
+                checkActive(current);
+                next = current + delta;
+                TRANSACTION_COUNT.getAndAdd(this, 1);
+                reportLeg(PostingType.DEPOSIT, minor, next, 0);
+            } finally {
+                release(next);
+            }
+            flushListener();
+            return true;
+        }
+        
+        LongAdder cells = stripedDeposits;
+        if (cells != null) {
+            checkActive(state);
+            cells.add(minor);
+            // A close may have drained the cells between the check and the add
+            if ((unclaimed(state) & CLOSED) != 0) {
+                cells.add(-minor);
+                throw new IllegalStateException("Account is not active");
+            }
+            stripedCount.increment();
+            return true;
+        }
+        
+        long current = state;
+        while (true) {
+            current = unclaimed(current);
+            checkActive(current);
+            long witness = (long) STATE.compareAndExchange(this, current, current + delta);
+            if (witness == current) {
+                break;
+            }
+            current = witness;
+        }
+        
+        TRANSACTION_COUNT.getAndAdd(this, 1);
+        return true;
+    }
+    
+    /**
+     * Withdraws amount from account
+     */
+    public boolean withdraw(double amount) {
+        long current = state;
+        checkActive(current);
+        
+        if (amount <= 0) {
+            return false;
+        }
+        
+        // Too large to hold in paise is more than any balance can cover
+        if (amount == amount && !Money.isConvertible(amount)) {
+            return false;
+        }
+        
+        long minor = toMinorUnits(amount);
+        // Claiming folds in pending striped deposits before the balance check
+        if (isObserved() || stripedDeposits != null) {
+            current = claim();
+            long next = current;
+            try {
+                checkActive(current);
+                if (minor - (current >> FLAG_BITS) > overdraftLimit) {
+                    return false;
+                }
+                
+                if (minor > policy.getWithdrawalCapMinor()) {
+                    throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+                }
+                
+                next = current - (minor << FLAG_BITS);
+                TRANSACTION_COUNT.getAndAdd(this, 1);
+                reportLeg(PostingType.WITHDRAWAL, minor, next, 0);
+            } finally {
+                release(next);
+            }
+            flushListener();
+            return true;
+        }
+        
+        long withdrawalCap = policy.getWithdrawalCapMinor();
+        while (true) {
+            current = unclaimed(current);
+            checkActive(current);
+            long balance = current >> FLAG_BITS;
+            if (minor - balance > overdraftLimit) {
+                return false;
+            }
+            
+            if (minor > withdrawalCap) {
+                throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+            }
+            
+            long witness = (long) STATE.compareAndExchange(this, current,
+                                                           current - (minor << FLAG_BITS));
+            if (witness == current) {
+                break;
+            }
+            current = witness;
+        }
+        
+        TRANSACTION_COUNT.getAndAdd(this, 1);
+        return true;
+    }
+    
+    /**
+     * Transfers amount to another account. The debit and the credit are
+     * applied together: if the transfer is rejected neither account changes.
+     */
+    public boolean transfer(ConcurrentAccountManager targetAccount, double amount) {
+        if (!isActive() || !targetAccount.isActive()) {
+            return false;
+        }
+        
+        if (amount <= 0) {
+            return false;
+        }
+        
+        // Checked up front so a transfer can never debit without crediting
+        if (amount > 1000000) {
+            throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+        }
+        
+        long minor = toMinorUnits(amount);
+        if (targetAccount == this) {
+            return transferToSelf(minor);
+        }
+        
+        boolean sourceFirst = lockOrder < targetAccount.lockOrder;
+        long firstWord = (sourceFirst ? this : targetAccount).claim();
+        long secondWord = (sourceFirst ? targetAccount : this).claim();
+        long sourceWord = sourceFirst ? firstWord : secondWord;
+        long targetWord = sourceFirst ? secondWord : firstWord;
+        int outcome = TRANSFER_REJECTED;
+        try {
+            outcome = checkTransfer(sourceWord, targetWord, minor);
+            if (outcome == TRANSFER_OK) {
+                sourceWord -= minor << FLAG_BITS;
+                targetWord += minor << FLAG_BITS;
+                TRANSACTION_COUNT.getAndAdd(this, 1);
+                TRANSACTION_COUNT.getAndAdd(targetAccount, 1);
+                // Reported while claimed so listeners see each account's postings in order
+                reportTransfer(this, targetAccount, minor, sourceWord, targetWord);
+            }
+        } finally {
+            targetAccount.release(targetWord);
+            release(sourceWord);
+        }
+        
+        if (outcome == TRANSFER_OVER_CAP) {
+            throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+        }
+        
+        if (outcome != TRANSFER_OK) {
+            return false;
+        }
+        
+        flushListeners(this, targetAccount);
+        return true;
+    }
+    
+    /**
+     * Applies a transfer whose source is its target under a single claim. The
+     * legs cancel out, so the balance never moves, but both are counted and
+     * reported as a transfer between two accounts would be.
+     */
+    private boolean transferToSelf(long minor) {
+        long current = claim();
+        int outcome = TRANSFER_REJECTED;
+        try {
+            outcome = checkTransfer(current, current, minor);
+            if (outcome == TRANSFER_OK) {
+                TRANSACTION_COUNT.getAndAdd(this, 2);
+                reportLeg(PostingType.TRANSFER_OUT, minor, current - (minor << FLAG_BITS), accountNumber);
+                reportLeg(PostingType.TRANSFER_IN, minor, current, accountNumber);
+            }
+        } finally {
+            release(current);
+        }
+        
+        if (outcome == TRANSFER_OVER_CAP) {
+            throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+        }
+        
+        if (outcome != TRANSFER_OK) {
+            return false;
+        }
+        
+        flushListener();
+        return true;
+    }
+    
+    /**
+     * Posts a batch of transfers in one call, as used by salary and settlement runs.
+     * Every account in the batch is claimed once, in global order, the transfers
+     * are applied in submission order, and all accounts are released together.
+     * Entries that a single transfer would reject or throw on are marked false
+     * instead of aborting the batch.
+     * @return number of transfers posted
+     */
+    public static int transferBatch(ConcurrentAccountManager[] sources,
+                                    ConcurrentAccountManager[] targets,
+                                    double[] amounts, boolean[] results) {
+        int count = amounts.length;
+        if (sources.length != count || targets.length != count || results.length != count) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+        
+        ConcurrentAccountManager[] accounts = new ConcurrentAccountManager[count * 2];
+        System.arraycopy(sources, 0, accounts, 0, count);
+        System.arraycopy(targets, 0, accounts, count, count);
+        Arrays.sort(accounts, BY_LOCK_ORDER);
+        int distinct = 0;
+        for (ConcurrentAccountManager account : accounts) {
+            if (distinct == 0 || accounts[distinct - 1] != account) {
+                accounts[distinct++] = account;
+            }
+        }
+        
+        long[] words = new long[distinct];
+        int[] postings = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            words[i] = accounts[i].claim();
+        }
+        
+        int posted = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                results[i] = false;
+                double amount = amounts[i];
+                // Written so that NaN is skipped too rather than thrown on mid-batch
+                if (!(amount > 0 && amount <= 1000000)) {
+                    continue;
+                }
+                
+                int source = indexOf(accounts, distinct, sources[i]);
+                int target = indexOf(accounts, distinct, targets[i]);
+                long minor = toMinorUnits(amount);
+                if (sources[i].checkTransfer(words[source], words[target], minor) != TRANSFER_OK) {
+                    continue;
+                }
+                
+                words[source] -= minor << FLAG_BITS;
+                words[target] += minor << FLAG_BITS;
+                postings[source]++;
+                postings[target]++;
+                TRANSACTION_COUNT.getAndAdd(sources[i], 1);
+                TRANSACTION_COUNT.getAndAdd(targets[i], 1);
+                results[i] = true;
+                posted++;
+                // Reported while claimed so listeners see each account's postings in order
+                reportTransfer(sources[i], targets[i], minor, words[source], words[target]);
+            }
+        } finally {
+            releaseAll(accounts, words, distinct);
+        }
+        
+        PostingListener flushed = null;
+        for (int i = 0; i < distinct; i++) {
+            PostingListener accountListener = accounts[i].listener;
+            if (accountListener != null && accountListener != flushed && postings[i] > 0) {
+                accountListener.flush();
+                flushed = accountListener;
+            }
+        }
+        return posted;
+    }
+    
+    /**
+     * Posts a balanced journal entry across any number of accounts, e.g. a
+     * payment with fee and tax legs. Negative amounts debit, positive amounts
+     * credit, and the amounts must sum to zero. Either every leg is applied or
+     * none is.
+     *
+     * The entry reads each account's state word without claiming it and checks
+     * the rules against those reads. It then claims the accounts in global
+     * order, expecting the state words it read; the state word changes with
+     * every posting, so it doubles as the account's version stamp. If any
+     * word (or product) changed, the claims are dropped and the entry retries.
+     * After a few conflicts it falls back to claiming before reading.
+     * @param amountsMinor signed leg amounts in paise; legs on the same account are netted
+     * @return ResultCode.POSTED, REJECTED (closed account or insufficient funds) or
+     *         INVALID (a leg over the withdrawal cap or the single-credit limit)
+     */
+    public static int postEntry(ConcurrentAccountManager[] accounts, long[] amountsMinor) {
+        return postEntry(accounts, amountsMinor, UNTRACKED);
+    }
+    
+    /**
+     * Posts a balanced journal entry, counting commits, conflicts and fallbacks in metrics
+     */
+    public static int postEntry(ConcurrentAccountManager[] accounts, long[] amountsMinor,
+                                EntryMetrics metrics) {
+        int legs = amountsMinor.length;
+        if (accounts.length != legs || legs < 2) {
+            throw new IllegalArgumentException("An entry needs at least two legs with one account each");
+        }
+        long total = 0;
+        for (long amount : amountsMinor) {
+            total = Money.add(total, amount);
+        }
+        if (total != 0) {
+            throw new IllegalArgumentException("Entry is not balanced");
+        }
+        
+        // Net the legs per account, ordered for claiming
+        ConcurrentAccountManager[] sorted = accounts.clone();
+        Arrays.sort(sorted, BY_LOCK_ORDER);
+        int distinct = 0;
+        for (ConcurrentAccountManager account : sorted) {
+            if (distinct == 0 || sorted[distinct - 1] != account) {
+                sorted[distinct++] = account;
+            }
+        }
+        long[] net = new long[distinct];
+        for (int i = 0; i < legs; i++) {
+            int index = indexOf(sorted, distinct, accounts[i]);
+            net[index] = Money.add(net[index], amountsMinor[i]);
+        }
+        
+        long[] words = new long[distinct];
+        long[] balances = new long[distinct];
+        ProductPolicy[] policies = new ProductPolicy[distinct];
+        int outcome = -1;
+        for (int attempt = 0; attempt < ENTRY_OPTIMISTIC_ATTEMPTS && outcome < 0; attempt++) {
+            for (int i = 0; i < distinct; i++) {
+                words[i] = sorted[i].unclaimed(sorted[i].state);
+                balances[i] = words[i] + (sorted[i].pendingDeposits() << FLAG_BITS);
+                policies[i] = sorted[i].policy;
+            }
+            int verdict = checkEntry(sorted, net, balances, distinct);
+            if (verdict != ResultCode.POSTED) {
+                outcome = verdict;
+                break;
+            }
+            if (tryClaimAll(sorted, words, policies, distinct)) {
+                for (int i = 0; i < distinct; i++) {
+                    words[i] = sorted[i].fold(words[i]);
+                }
+                // Deposits undone after a close can shrink the cells since the read
+                outcome = checkEntry(sorted, net, words, distinct);
+                if (outcome != ResultCode.POSTED) {
+                    releaseAll(sorted, words, distinct);
+                }
+            } else {
+                metrics.conflicts.increment();
+            }
+        }
+        
+        if (outcome < 0) {
+            metrics.fallbacks.increment();
+            for (int i = 0; i < distinct; i++) {
+                words[i] = sorted[i].claim();
+            }
+            outcome = checkEntry(sorted, net, words, distinct);
+            if (outcome != ResultCode.POSTED) {
+                releaseAll(sorted, words, distinct);
+            }
+        }
+        
+        if (outcome != ResultCode.POSTED) {
+            metrics.rejections.increment();
+            return outcome;
+        }
+        
+        // Every account is claimed with words[] as its current state
+        for (int i = 0; i < distinct; i++) {
+            words[i] += net[i] << FLAG_BITS;
+            if (net[i] != 0) {
+                TRANSACTION_COUNT.getAndAdd(sorted[i], 1);
+            }
+        }
+        try {
+            for (int i = 0; i < distinct; i++) {
+                if (net[i] != 0) {
+                    long counterparty = distinct == 2 ? sorted[1 - i].accountNumber : 0;
+                    sorted[i].reportLeg(net[i] < 0 ? PostingType.TRANSFER_OUT : PostingType.TRANSFER_IN,
+                                        Math.abs(net[i]), words[i], counterparty);
+                }
+            }
+        } finally {
+            for (int i = 0; i < distinct; i++) {
+                sorted[i].release(words[i]);
+            }
+        }
+        metrics.commits.increment();
+        
+        PostingListener flushed = null;
+        for (int i = 0; i < distinct; i++) {
+            PostingListener accountListener = sorted[i].listener;
+            if (accountListener != null && accountListener != flushed && net[i] != 0) {
+                accountListener.flush();
+                flushed = accountListener;
+            }
+        }
+        return ResultCode.POSTED;
+    }
+    
+    /**
+     * Counters for multi-leg entries, shared by any number of threads
+     */
+    public static final class EntryMetrics {
+        
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        
+        /**
+         * Gets number of entries posted
+         */
+        public long getCommits() {
+            return commits.sum();
+        }
+        
+        /**
+         * Gets number of optimistic attempts aborted because an account changed
+         */
+        public long getConflicts() {
+            return conflicts.sum();
+        }
+        
+        /**
+         * Gets number of entries that gave up on optimistic validation and claimed first
+         */
+        public long getFallbacks() {
+            return fallbacks.sum();
+        }
+        
+        /**
+         * Gets number of entries refused by the account rules
+         */
+        public long getRejections() {
+            return rejections.sum();
+        }
+        
+        /**
+         * Gets the share of commit attempts that aborted on a conflict
+         */
+        public double getAbortRate() {
+            long aborted = conflicts.sum();
+            long attempts = aborted + commits.sum() + rejections.sum();
+            return attempts == 0 ? 0.0 : aborted / (double) attempts;
+        }
+    }
+    
+    /**
+     * Calculates monthly interest for savings account
+     */
+    public double calculateMonthlyInterest(double annualRate) {
+        return Money.toRupees(interestFor(currentWord() >> FLAG_BITS, annualRate));
+    }
+    
+    /**
+     * Applies monthly interest to account
+     */
+    public void applyInterest(double annualRate) {
+        long current = claim();
+        long next = current;
+        try {
+            long credit = interestFor(current >> FLAG_BITS, annualRate);
+            if (credit <= 0) {
+                return;
+            }
+            
+            next = current + (credit << FLAG_BITS);
+            reportLeg(PostingType.INTEREST, credit, next, 0);
+        } finally {
+            release(next);
+        }
+        flushListener();
+    }
+    
+    /**
+     * Calculates maintenance charge for the current balance
+     */
+    public double calculateMaintenanceCharge() {
+        return Money.toRupees(maintenanceChargeFor(currentWord()));
+    }
+    
+    /**
+     * Deducts maintenance charges from account
+     */
+    public boolean deductMaintenanceCharge() {
+        long current = claim();
+        long next = current;
+        try {
+            long charge = maintenanceChargeFor(current);
+            if (charge == 0) {
+                return true;
+            }
+            
+            if ((current >> FLAG_BITS) < charge) {
+                return false;
+            }
+            
+            next = current - (charge << FLAG_BITS);
+            reportLeg(PostingType.MAINTENANCE_CHARGE, charge, next, 0);
+        } finally {
+            release(next);
+        }
+        flushListener();
+        return true;
+    }
+    
+    /**
+     * Checks if account qualifies for upgrade
+     */
+    public boolean canUpgrade() {
+        return policy.qualifiesForUpgrade(currentWord() >> FLAG_BITS, getTransactionCount());
+    }
+    
+    /**
+     * Upgrades account type
+     */
+    public boolean upgradeAccount(String newType) {
+        long current = claim();
+        try {
+            // Checked against the claimed word: currentWord() would wait for this claim
+            if (!policy.qualifiesForUpgrade(current >> FLAG_BITS, getTransactionCount())
+                    || !policy.canUpgradeTo(newType)) {
+                return false;
+            }
+            
+            ProductPolicy target = catalog.resolve(newType);
+            accountType = newType;
+            policy = target;
+            overdraftLimit = target.getOverdraftLimitMinor();
+            reportLeg(PostingType.UPGRADE, 0, current, target.getCode());
+        } finally {
+            release(current);
+        }
+        flushListener();
+        return true;
+    }
+    
+    /**
+     * Closes the account
+     */
+    public boolean closeAccount() {
+        // Claiming drains striped deposits, so none are left behind in a closed account
+        long current = claim();
+        long next = current;
+        try {
+            if ((current >> FLAG_BITS) < 0) {
+                return false; // Cannot close account with negative balance
+            }
+            next = current | CLOSED;
+            if ((current & CLOSED) == 0) {
+                reportLeg(PostingType.CLOSE, 0, next, 0);
+            }
+        } finally {
+            release(next);
+        }
+        
+        if ((current & CLOSED) == 0) {
+            flushListener();
+        }
+        return true;
+    }
+    
+    /**
+     * Re-applies a journaled posting during recovery. The posting was validated
+     * when it was first made, so no rules are checked and no listener is told.
+     * Postings of one account must be replayed in journal order by one thread.
+     */
+    void replay(byte type, long amountMinor, long counterparty) {
+        long current = unclaimed(state);
+        long next = current + (PostingType.signedAmount(type, amountMinor) << FLAG_BITS);
+        if (PostingType.isCounted(type)) {
+            TRANSACTION_COUNT.getAndAdd(this, 1);
+        }
+        switch (type) {
+            case PostingType.UPGRADE:
+                policy = catalog.get((byte) counterparty);
+                accountType = policy.getName();
+                overdraftLimit = policy.getOverdraftLimitMinor();
+                break;
+            case PostingType.CLOSE:
+                next |= CLOSED;
+                break;
+            default:
+                break;
+        }
+        state = next;
+    }
+    
+    /**
+     * Switches the account to striped deposits, for hot accounts such as
+     * settlement accounts that many threads deposit into at once. Deposits
+     * then add to per-thread cells instead of contending on the state word
+     * or the transaction count; operations that need the exact balance fold
+     * the cells in first, and the count is summed when read. Cannot
+     * be switched off again. Deposits into an account with a listener or
+     * history are still applied under the claim, so they are reported in order.
+     */
+    public void enableStripedDeposits() {
+        STRIPED_COUNT.compareAndSet(this, null, new LongAdder());
+        STRIPED_DEPOSITS.compareAndSet(this, null, new LongAdder());
+    }
+    
+    /**
+     * Checks if the account uses striped deposits
+     */
+    public boolean isStripedDeposits() {
+        return stripedDeposits != null;
+    }
+    
+    /**
+     * Sets the listener notified of every posting on this account, or null for none
+     */
+    public void setPostingListener(PostingListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * Reports an OPEN posting carrying the current balance, first making
+     * newListener the posting listener unless it is null. Runs under the
+     * claim, so the OPEN reaches the listener before any later posting.
+     */
+    void announce(PostingListener newListener) {
+        long current = claim();
+        try {
+            if (newListener != null) {
+                listener = newListener;
+            }
+            PostingListener target = listener;
+            if (target != null) {
+                long balance = current >> FLAG_BITS;
+                target.onPosting(this, PostingType.OPEN, balance, balance, policy.getCode());
+            }
+        } finally {
+            release(current);
+        }
+    }
+    
+    /**
+     * Gets the posting listener, or null if none is set
+     */
+    public PostingListener getPostingListener() {
+        return listener;
+    }
+    
+    /**
+     * Sets the history that records this account's postings, or null for none
+     */
+    public void setTransactionHistory(TransactionHistory history) {
+        this.history = history;
+    }
+    
+    /**
+     * Gets the transaction history, or null if none is set
+     */
+    public TransactionHistory getTransactionHistory() {
+        return history;
+    }
+    
+    /**
+     * Checks if account is overdrawn
+     */
+    public boolean isOverdrawn() {
+        return (currentWord() >> FLAG_BITS) < 0;
+    }
+    
+    /**
+     * Calculates overdraft fee
+     */
+    public double calculateOverdraftFee() {
+        long balance = currentWord() >> FLAG_BITS;
+        if (balance >= 0) {
+            return 0.0;
+        }
+        
+        double overdraftAmount = CALCULATOR.abs((int) (balance / Money.SCALE));
+        double fee = 0.0;
+        
+        if (overdraftAmount > 0 && overdraftAmount <= 10000) {
+            fee = 500;
+        } else if (overdraftAmount > 10000) {
+            fee = 1000;
+        }
+        
+        return fee;
+    }
+    
+    /**
+     * Gets current balance
+     */
+    public double getBalance() {
+        return Money.toRupees(currentWord() >> FLAG_BITS);
+    }
+    
+    /**
+     * Gets current balance in paise
+     */
+    public long getBalanceMinor() {
+        return currentWord() >> FLAG_BITS;
+    }
+    
+    /**
+     * Gets account number, 0 when the account was created without one
+     */
+    public long getAccountNumber() {
+        return accountNumber;
+    }
+    
+    /**
+     * Gets account type
+     */
+    public String getAccountType() {
+        return accountType;
+    }
+    
+    /**
+     * Gets the product rules the account follows
+     */
+    public ProductPolicy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Gets transaction count
+     */
+    public int getTransactionCount() {
+        LongAdder counted = stripedCount;
+        return counted == null ? transactionCount : transactionCount + counted.intValue();
+    }
+    
+    /**
+     * Checks if account is active
+     */
+    public boolean isActive() {
+        return (state & CLOSED) == 0;
+    }
+    
+    /**
+     * Gets overdraft limit
+     */
+    public double getOverdraftLimit() {
+        return Money.toRupees(overdraftLimit);
+    }
+    
+    /**
+     * Gets available balance including overdraft
+     */
+    public double getAvailableBalance() {
+        return Money.toRupees((currentWord() >> FLAG_BITS) + overdraftLimit);
+    }
+    
+    private long interestFor(long balanceMinor, double annualRate) {
+        if (annualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        
+        if (!policy.isInterestEligible()) {
+            return 0;
+        }
+        
+        if (balanceMinor < 0) {
+            return 0; // No interest on negative balance
+        }
+        
+        return Money.applyRate(balanceMinor, annualRate / 12 / 100);
+    }
+    
+    private long maintenanceChargeFor(long stateWord) {
+        if ((stateWord & CLOSED) != 0) {
+            return 0;
+        }
+        
+        return policy.maintenanceChargeFor(stateWord >> FLAG_BITS);
+    }
+    
+    /**
+     * Checks if postings on this account are recorded or reported. Observed
+     * postings are applied under the claim and reported before it is
+     * released, so each account's records are in posting order.
+     */
+    private boolean isObserved() {
+        return history != null || listener != null;
+    }
+    
+    /**
+     * Ends an operation whose postings were reported under the claim
+     */
+    private void flushListener() {
+        PostingListener current = listener;
+        if (current != null) {
+            current.flush();
+        }
+    }
+    
+    private static void reportTransfer(ConcurrentAccountManager source, ConcurrentAccountManager target,
+                                       long minor, long sourceWord, long targetWord) {
+        TransactionHistory sourceHistory = source.history;
+        if (sourceHistory != null) {
+            sourceHistory.record(PostingType.TRANSFER_OUT, minor, sourceWord >> FLAG_BITS, target.accountNumber);
+        }
+        TransactionHistory targetHistory = target.history;
+        if (targetHistory != null) {
+            targetHistory.record(PostingType.TRANSFER_IN, minor, targetWord >> FLAG_BITS, source.accountNumber);
+        }
+        PostingListener sourceListener = source.listener;
+        if (sourceListener != null) {
+            sourceListener.onPosting(source, PostingType.TRANSFER_OUT, minor,
+                                     sourceWord >> FLAG_BITS, target.accountNumber);
+        }
+        PostingListener targetListener = target.listener;
+        if (targetListener != null) {
+            targetListener.onPosting(target, PostingType.TRANSFER_IN, minor,
+                                     targetWord >> FLAG_BITS, source.accountNumber);
+        }
+    }
+    
+    private static void flushListeners(ConcurrentAccountManager source, ConcurrentAccountManager target) {
+        PostingListener sourceListener = source.listener;
+        if (sourceListener != null) {
+            sourceListener.flush();
+        }
+        PostingListener targetListener = target.listener;
+        if (targetListener != null && targetListener != sourceListener) {
+            targetListener.flush();
+        }
+    }
+    
+    /**
+     * Checks a claimed source/target pair against the withdrawal rules of this account
+     */
+    private int checkTransfer(long sourceWord, long targetWord, long minor) {
+        if ((sourceWord & CLOSED) != 0 || (targetWord & CLOSED) != 0) {
+            return TRANSFER_REJECTED;
+        }
+        
+        if (minor - (sourceWord >> FLAG_BITS) > overdraftLimit) {
+            return TRANSFER_REJECTED;
+        }
+        
+        if (minor > policy.getWithdrawalCapMinor()) {
+            return TRANSFER_OVER_CAP;
+        }
+        
+        return TRANSFER_OK;
+    }
+    
+    /**
+     * Checks an entry's netted legs against state words read for the accounts
+     */
+    private static int checkEntry(ConcurrentAccountManager[] accounts, long[] net, long[] words, int count) {
+        for (int i = 0; i < count; i++) {
+            if ((words[i] & CLOSED) != 0) {
+                return ResultCode.REJECTED;
+            }
+            if (net[i] > MAX_CREDIT_MINOR) {
+                return ResultCode.INVALID;
+            }
+            if (net[i] < 0) {
+                long debit = -net[i];
+                if (debit - (words[i] >> FLAG_BITS) > accounts[i].overdraftLimit) {
+                    return ResultCode.REJECTED;
+                }
+                if (debit > accounts[i].policy.getWithdrawalCapMinor()) {
+                    return ResultCode.INVALID;
+                }
+            }
+        }
+        return ResultCode.POSTED;
+    }
+    
+    /**
+     * Claims every account in order if each still has the state word and product
+     * that were read; otherwise drops the claims taken so far
+     */
+    private static boolean tryClaimAll(ConcurrentAccountManager[] accounts, long[] words,
+                                       ProductPolicy[] policies, int count) {
+        for (int i = 0; i < count; i++) {
+            ConcurrentAccountManager account = accounts[i];
+            if (!STATE.compareAndSet(account, words[i], words[i] | CLAIMED)) {
+                releaseAll(accounts, words, i);
+                return false;
+            }
+            // Upgrades change the product under a claim without changing the word
+            if (account.policy != policies[i]) {
+                releaseAll(accounts, words, i + 1);
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void releaseAll(ConcurrentAccountManager[] accounts, long[] words, int count) {
+        for (int i = 0; i < count; i++) {
+            accounts[i].release(words[i]);
+        }
+    }
+    
+    /**
+     * Records one leg of a multi-account posting without flushing the listener
+     */
+    private void reportLeg(byte type, long amountMinor, long stateWord, long counterparty) {
+        TransactionHistory recent = history;
+        if (recent != null) {
+            recent.record(type, amountMinor, stateWord >> FLAG_BITS, counterparty);
+        }
+        PostingListener current = listener;
+        if (current != null) {
+            current.onPosting(this, type, amountMinor, stateWord >> FLAG_BITS, counterparty);
+        }
+    }
+    
+    /**
+     * Spins until no transfer holds the claim bit, then returns the state word
+     * with any striped deposits folded in; release() publishes it
+     */
+    private long claim() {
+        long current = state;
+        while (true) {
+            current = unclaimed(current);
+            long witness = (long) STATE.compareAndExchange(this, current, current | CLAIMED);
+            if (witness == current) {
+                return fold(current);
+            }
+            current = witness;
+        }
+    }
+    
+    /**
+     * Moves pending striped deposits into a claimed state word. Only the sum
+     * that was read is taken out of the cells, so a deposit added meanwhile
+     * stays pending rather than being lost.
+     */
+    private long fold(long claimedWord) {
+        LongAdder cells = stripedDeposits;
+        if (cells == null) {
+            return claimedWord;
+        }
+        long pending = cells.sum();
+        if (pending != 0) {
+            cells.add(-pending);
+        }
+        return claimedWord + (pending << FLAG_BITS);
+    }
+    
+    private long pendingDeposits() {
+        LongAdder cells = stripedDeposits;
+        return cells == null ? 0 : cells.sum();
+    }
+    
+    /**
+     * Gets the state word including pending striped deposits, without claiming
+     */
+    private long currentWord() {
+        LongAdder cells = stripedDeposits;
+        long word = state;
+        if (cells == null) {
+            return word;
+        }
+        
+        // Re-read the word after the cells: if it moved, a fold may have
+        // taken deposits out of the cells that the first read did not include
+        word = unclaimed(word);
+        while (true) {
+            long pending = cells.sum();
+            long check = state;
+            if (check == word) {
+                return word + (pending << FLAG_BITS);
+            }
+            word = unclaimed(check);
+        }
+    }
+    
+    /**
+     * Publishes the new state word and drops the claim taken by claim()
+     */
+    private void release(long stateWord) {
+        state = stateWord;
+    }
+    
+    private long unclaimed(long current) {
+        while ((current & CLAIMED) != 0) {
+            Thread.onSpinWait();
+            current = state;
+        }
+        return current;
+    }
+    
+    private static int indexOf(ConcurrentAccountManager[] sorted, int length,
+                               ConcurrentAccountManager account) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long order = sorted[mid].lockOrder;
+            if (order < account.lockOrder) {
+                low = mid + 1;
+            } else if (order > account.lockOrder) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        throw new IllegalStateException("Account missing from batch");
+    }
+    
+    private static void checkActive(long stateWord) {
+        if ((stateWord & CLOSED) != 0) {
+            throw new IllegalStateException("Account is not active");
+        }
+    }
+    
+    private static long toMinorUnits(double amount) {
+        return Money.ofRupees(amount);
+    }
+}
@@ -0,0 +1,264 @@
+package com.banking;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent set of recently seen transaction IDs. IDs are kept
+ * as primitive longs in lock-striped segments; each segment is a FIFO
+ * ring of entries in arrival order plus an open-addressing index into
+ * the ring, so a lookup is one hash probe and nothing is allocated per ID.
+ *
+ * An ID is forgotten when it is older than the time-to-live or when its
+ * segment is full and it is the oldest entry there.
+ */
+public class DedupeCache {
+    
+    private static final int DEFAULT_STRIPES = 16;
+    
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    /**
+     * Creates a cache holding up to roughly capacity IDs for the given time
+     */
+    public DedupeCache(int capacity, long ttl, TimeUnit unit) {
+        this(capacity, unit.toNanos(ttl), DEFAULT_STRIPES, System::nanoTime);
+    }
+    
+    /**
+     * Creates a cache with the given number of stripes (rounded up to a power
+     * of two) and a nanosecond clock
+     */
+    public DedupeCache(int capacity, long ttlNanos, int stripes, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (ttlNanos <= 0) {
+            throw new IllegalArgumentException("Time-to-live must be positive");
+        }
+        if (stripes <= 0 || stripes > (1 << 16)) {
+            throw new IllegalArgumentException("Stripe count must be between 1 and 65536");
+        }
+        
+        int segmentCount = Integer.highestOneBit(Math.min(stripes, capacity) * 2 - 1);
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        int perSegment = (capacity + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+    
+    /**
+     * Records an ID unless it was already seen within the time-to-live
+     * @return true if the ID is new, false if it is a duplicate
+     */
+    public boolean tryClaim(long id) {
+        long hash = mix(id);
+        boolean claimed = segmentFor(hash).claim(id, hash, clock.getAsLong());
+        (claimed ? misses : hits).increment();
+        return claimed;
+    }
+    
+    /**
+     * Checks whether an ID was seen within the time-to-live, without recording it
+     */
+    public boolean contains(long id) {
+        long hash = mix(id);
+        return segmentFor(hash).contains(id, hash, clock.getAsLong());
+    }
+    
+    /**
+     * Forgets an ID, e.g. when the operation it guarded did not post
+     */
+    public void release(long id) {
+        long hash = mix(id);
+        segmentFor(hash).remove(id, hash);
+    }
+    
+    /**
+     * Gets number of IDs currently held
+     */
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.size();
+        }
+        return total;
+    }
+    
+    /**
+     * Gets number of claims rejected as duplicates
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Gets number of claims that recorded a new ID
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets number of IDs dropped to make room before their time-to-live ran out
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Gets number of IDs dropped because their time-to-live ran out
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+    
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 40) & segmentMask];
+    }
+    
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+    
+    /**
+     * One lock stripe: a ring of entries in arrival order and a linear-probing
+     * index from ID to ring position
+     */
+    private final class Segment {
+        
+        private final long[] ids;
+        private final long[] times;
+        private final boolean[] live;
+        private final int[] index; // ring position + 1, 0 = empty slot
+        private final int indexMask;
+        private int head;
+        private int count;
+        private int liveCount;
+        
+        Segment(int capacity) {
+            ids = new long[capacity];
+            times = new long[capacity];
+            live = new boolean[capacity];
+            index = new int[Integer.highestOneBit(Math.max(1, capacity)) * 4];
+            indexMask = index.length - 1;
+        }
+        
+        synchronized boolean claim(long id, long hash, long now) {
+            expire(now);
+            if (find(id, hash) >= 0) {
+                return false;
+            }
+            
+            if (count == ids.length) {
+                if (live[head]) {
+                    evictions.increment();
+                }
+                dropHead();
+            }
+            
+            int position = (head + count) % ids.length;
+            ids[position] = id;
+            times[position] = now;
+            live[position] = true;
+            count++;
+            liveCount++;
+            
+            int slot = (int) hash & indexMask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & indexMask;
+            }
+            index[slot] = position + 1;
+            return true;
+        }
+        
+        synchronized boolean contains(long id, long hash, long now) {
+            expire(now);
+            return find(id, hash) >= 0;
+        }
+        
+        synchronized void remove(long id, long hash) {
+            int slot = find(id, hash);
+            if (slot >= 0) {
+                live[index[slot] - 1] = false;
+                liveCount--;
+                unindex(slot);
+            }
+        }
+        
+        synchronized int size() {
+            return liveCount;
+        }
+        
+        /**
+         * Drops entries from the front of the ring whose time-to-live has run out
+         */
+        private void expire(long now) {
+            while (count > 0 && now - times[head] >= ttlNanos) {
+                if (live[head]) {
+                    expirations.increment();
+                }
+                dropHead();
+            }
+        }
+        
+        private void dropHead() {
+            if (live[head]) {
+                live[head] = false;
+                liveCount--;
+                unindex(find(ids[head], mix(ids[head])));
+            }
+            head = (head + 1) % ids.length;
+            count--;
+        }
+        
+        /**
+         * Finds the index slot holding an ID
+         * @return the slot, or -1 if the ID is not indexed
+         */
+        private int find(long id, long hash) {
+            int slot = (int) hash & indexMask;
+            while (index[slot] != 0) {
+                if (ids[index[slot] - 1] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & indexMask;
+            }
+            return -1;
+        }
+        
+        /**
+         * Empties an index slot, shifting later entries of the probe run back
+         * so lookups never stop early at the hole
+         */
+        private void unindex(int slot) {
+            int hole = slot;
+            int next = (hole + 1) & indexMask;
+            while (index[next] != 0) {
+                int home = (int) mix(ids[index[next] - 1]) & indexMask;
+                // Move the entry if its home slot is not between the hole and its position
+                if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                    index[hole] = index[next];
+                    hole = next;
+                }
+                next = (next + 1) & indexMask;
+            }
+            index[hole] = 0;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.banking;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Re-amortizes floating-rate loans when their rate is reset. A reset starts
+ * from each loan's current outstanding and remaining tenure rather than
+ * from inception, and either keeps the EMI and moves the tenure or keeps
+ * the tenure and moves the EMI.
+ *
+ * Whole-book resets take the book as parallel primitive arrays, update the
+ * EMI and remaining-tenure columns in place and run as fork/join tasks, as
+ * LoanBookEngine does.
+ */
+public class FloatingRateEngine {
+    
+    /** Keep the EMI and change the remaining tenure */
+    public static final int KEEP_EMI = 0;
+    /** Keep the remaining tenure and change the EMI */
+    public static final int KEEP_TENURE = 1;
+    
+    private static final int LEAF_SIZE = 4096;
+    // EMIs are rounded to paise, so up to half a paisa a month may be left over
+    private static final double EMI_ROUNDING = 0.005;
+    private static final double TENURE_EPSILON = 1e-9;
+    
+    private final LoanCalculator calculator;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Creates an engine running on the common fork/join pool
+     */
+    public FloatingRateEngine(LoanCalculator calculator) {
+        this(calculator, ForkJoinPool.commonPool());
+    }
+    
+    public FloatingRateEngine(LoanCalculator calculator, ForkJoinPool pool) {
+        this.calculator = calculator;
+        this.pool = pool;
+    }
+    
+    /**
+     * Calculates the new EMI that repays the outstanding over the remaining tenure at the new rate
+     */
+    public double emiKeepingTenure(double outstanding, double newAnnualRate, int remainingMonths) {
+        return calculator.calculateEMI(outstanding, newAnnualRate, remainingMonths);
+    }
+    
+    /**
+     * Calculates the months needed to repay the outstanding with an unchanged EMI at the new rate.
+     * The last payment settles the remainder, as in AmortizationSchedule.
+     * @return remaining months, or -1 if the EMI does not cover a month's interest
+     */
+    public int tenureKeepingEmi(double outstanding, double newAnnualRate, double emi) {
+        if (newAnnualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        if (emi <= 0) {
+            throw new IllegalArgumentException("EMI must be positive");
+        }
+        
+        if (outstanding <= 0) {
+            return 0;
+        }
+        
+        double monthlyRate = newAnnualRate / (12 * 100);
+        double months;
+        if (newAnnualRate == 0) {
+            months = outstanding / emi;
+        } else {
+            double interest = outstanding * monthlyRate;
+            if (interest >= emi) {
+                return -1;
+            }
+            // Solves outstanding = emi * (1 - (1 + r)^-n) / r for n
+            months = -Math.log1p(-interest / emi) / Math.log1p(monthlyRate);
+        }
+        
+        if (months > Integer.MAX_VALUE) {
+            return -1;
+        }
+        int tenure = (int) Math.ceil(months - TENURE_EPSILON);
+        
+        // A remainder no larger than the EMI's rounding could leave is settled
+        // by the last payment instead of taking another month
+        if (tenure > 1) {
+            int paid = tenure - 1;
+            double growth = newAnnualRate == 0 ? 1 : Math.pow(1 + monthlyRate, paid);
+            double accumulated = newAnnualRate == 0 ? paid : (growth - 1) / monthlyRate;
+            double remaining = outstanding * growth - emi * accumulated;
+            if (remaining <= Math.min(emi, EMI_ROUNDING * accumulated)) {
+                return paid;
+            }
+        }
+        return tenure;
+    }
+    
+    /**
+     * Resets the rate of every loan in the book, updating emis and
+     * remainingMonths in place. Loans with nothing outstanding or no months
+     * left are skipped. Under KEEP_EMI, a loan whose EMI no longer covers
+     * its interest keeps its tenure instead.
+     * @param mode KEEP_EMI or KEEP_TENURE
+     * @return number of loans that could not keep their EMI
+     * @throws IllegalArgumentException if the arrays differ in length, the mode
+     *         is unknown or a loan is invalid; other loans may then be partly updated
+     */
+    public int resetBook(double[] outstandings, double[] newAnnualRates, int[] remainingMonths,
+                         double[] emis, int mode) {
+        int n = outstandings.length;
+        if (newAnnualRates.length != n || remainingMonths.length != n || emis.length != n) {
+            throw new IllegalArgumentException("Array lengths differ");
+        }
+        if (mode != KEEP_EMI && mode != KEEP_TENURE) {
+            throw new IllegalArgumentException("Unknown reset mode: " + mode);
+        }
+        
+        return pool.invoke(new Range(this, outstandings, newAnnualRates, remainingMonths, emis, mode, 0, n));
+    }
+    
+    private static final class Range extends RecursiveTask<Integer> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final transient FloatingRateEngine engine;
+        private final double[] outstandings;
+        private final double[] newAnnualRates;
+        private final int[] remainingMonths;
+        private final double[] emis;
+        private final int mode;
+        private final int from;
+        private final int to;
+        
+        Range(FloatingRateEngine engine, double[] outstandings, double[] newAnnualRates,
+              int[] remainingMonths, double[] emis, int mode, int from, int to) {
+            this.engine = engine;
+            this.outstandings = outstandings;
+            this.newAnnualRates = newAnnualRates;
+            this.remainingMonths = remainingMonths;
+            this.emis = emis;
+            this.mode = mode;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Integer compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                Range left = split(from, middle);
+                left.fork();
+                int right = split(middle, to).compute();
+                return left.join() + right;
+            }
+            
+            int fallbacks = 0;
+            for (int i = from; i < to; i++) {
+                double outstanding = outstandings[i];
+                int months = remainingMonths[i];
+                if (outstanding <= 0 || months <= 0) {
+                    continue;
+                }
+                
+                if (mode == KEEP_EMI) {
+                    int newMonths = engine.tenureKeepingEmi(outstanding, newAnnualRates[i], emis[i]);
+                    if (newMonths >= 0) {
+                        remainingMonths[i] = newMonths;
+                        continue;
+                    }
+                    fallbacks++;
+                }
+                emis[i] = engine.emiKeepingTenure(outstanding, newAnnualRates[i], months);
+            }
+            return fallbacks;
+        }
+        
+        private Range split(int from, int to) {
+            return new Range(engine, outstandings, newAnnualRates, remainingMonths, emis, mode, from, to);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Posting APIs keyed by a client transaction ID. A retried request with an
+ * ID that was already posted returns DUPLICATE instead of posting again.
+ * The ID is claimed before the operation runs and released again if the
+ * operation is rejected or throws, so a corrected retry can still post.
+ *
+ * While the first attempt of an ID is still running, a concurrent retry of
+ * the same ID is reported as DUPLICATE.
+ */
+public class IdempotentPostings {
+    
+    private final DedupeCache cache;
+    
+    public IdempotentPostings(DedupeCache cache) {
+        this.cache = cache;
+    }
+    
+    /**
+     * Deposits amount into account unless the transaction ID was already posted
+     */
+    public int deposit(long transactionId, ConcurrentAccountManager account, double amount) {
+        return post(transactionId, () -> account.deposit(amount));
+    }
+    
+    /**
+     * Withdraws amount from account unless the transaction ID was already posted
+     */
+    public int withdraw(long transactionId, ConcurrentAccountManager account, double amount) {
+        return post(transactionId, () -> account.withdraw(amount));
+    }
+    
+    /**
+     * Transfers amount between accounts unless the transaction ID was already posted
+     */
+    public int transfer(long transactionId, ConcurrentAccountManager source,
+                        ConcurrentAccountManager target, double amount) {
+        return post(transactionId, () -> source.transfer(target, amount));
+    }
+    
+    /**
+     * Deposits amount into a single-threaded account unless the transaction ID was already posted
+     */
+    public int deposit(long transactionId, AccountManager account, double amount) {
+        return post(transactionId, () -> account.deposit(amount));
+    }
+    
+    /**
+     * Withdraws amount from a single-threaded account unless the transaction ID was already posted
+     */
+    public int withdraw(long transactionId, AccountManager account, double amount) {
+        return post(transactionId, () -> account.withdraw(amount));
+    }
+    
+    /**
+     * Transfers amount between single-threaded accounts unless the transaction ID was already posted
+     */
+    public int transfer(long transactionId, AccountManager source, AccountManager target, double amount) {
+        return post(transactionId, () -> source.transfer(target, amount));
+    }
+    
+    /**
+     * Gets the dedupe cache backing these postings
+     */
+    public DedupeCache getCache() {
+        return cache;
+    }
+    
+    private int post(long transactionId, BooleanSupplier operation) {
+        if (!cache.tryClaim(transactionId)) {
+            return ResultCode.DUPLICATE;
+        }
+        
+        boolean posted = false;
+        try {
+            posted = operation.getAsBoolean();
+        } finally {
+            if (!posted) {
+                cache.release(transactionId);
+            }
+        }
+        return posted ? ResultCode.POSTED : ResultCode.REJECTED;
+    }
+}
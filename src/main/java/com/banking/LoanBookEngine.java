@@ -0,0 +1,105 @@
+package com.banking;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates EMI, total interest and total amount for a whole loan book in
+ * one call. Loans are given as parallel primitive arrays, one loan per
+ * index, and the book is split into ranges that run as fork/join tasks.
+ *
+ * Each loan's EMI is computed once and both totals are derived from it,
+ * with the same rounding as LoanCalculator.calculateTotalInterest and
+ * calculateTotalAmount.
+ */
+public class LoanBookEngine {
+    
+    // Loans per leaf task; large enough to amortise task overhead
+    private static final int LEAF_SIZE = 4096;
+    
+    private final LoanCalculator calculator;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Creates an engine running on the common fork/join pool
+     */
+    public LoanBookEngine(LoanCalculator calculator) {
+        this(calculator, ForkJoinPool.commonPool());
+    }
+    
+    public LoanBookEngine(LoanCalculator calculator, ForkJoinPool pool) {
+        this.calculator = calculator;
+        this.pool = pool;
+    }
+    
+    /**
+     * Evaluates every loan in the book into the output arrays
+     * @param emis receives the monthly EMI of each loan
+     * @param totalInterests receives the total interest of each loan
+     * @param totalAmounts receives principal plus total interest of each loan
+     * @throws IllegalArgumentException if the arrays differ in length or a loan
+     *         is invalid, as LoanCalculator.calculateEMI; outputs for other loans
+     *         may then be partly written
+     */
+    public void evaluate(double[] principals, double[] annualRates, int[] tenureMonths,
+                         double[] emis, double[] totalInterests, double[] totalAmounts) {
+        int n = principals.length;
+        if (annualRates.length != n || tenureMonths.length != n || emis.length != n
+                || totalInterests.length != n || totalAmounts.length != n) {
+            throw new IllegalArgumentException("Array lengths differ");
+        }
+        
+        pool.invoke(new Range(calculator, principals, annualRates, tenureMonths, emis, totalInterests, totalAmounts, 0, n));
+    }
+    
+    private static final class Range extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final transient LoanCalculator calculator;
+        private final double[] principals;
+        private final double[] annualRates;
+        private final int[] tenureMonths;
+        private final double[] emis;
+        private final double[] totalInterests;
+        private final double[] totalAmounts;
+        private final int from;
+        private final int to;
+        
+        Range(LoanCalculator calculator, double[] principals, double[] annualRates, int[] tenureMonths,
+              double[] emis, double[] totalInterests, double[] totalAmounts, int from, int to) {
+            this.calculator = calculator;
+            this.principals = principals;
+            this.annualRates = annualRates;
+            this.tenureMonths = tenureMonths;
+            this.emis = emis;
+            this.totalInterests = totalInterests;
+            this.totalAmounts = totalAmounts;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(split(from, middle), split(middle, to));
+                return;
+            }
+            
+            for (int i = from; i < to; i++) {
+                double principal = principals[i];
+                int tenure = tenureMonths[i];
+                double emi = calculator.calculateEMI(principal, annualRates[i], tenure);
+                double totalInterest = Math.round((emi * tenure - principal) * 100.0) / 100.0;
+                emis[i] = emi;
+                totalInterests[i] = totalInterest;
+                totalAmounts[i] = principal + totalInterest;
+            }
+        }
+        
+        private Range split(int from, int to) {
+            return new Range(calculator, principals, annualRates, tenureMonths, emis, totalInterests, totalAmounts, from, to);
+        }
+    }
+}
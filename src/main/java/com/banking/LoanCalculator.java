@@ -1,14 +1,28 @@
 package com.banking;
 
+import java.util.Arrays;
+
 /**
  * Loan Calculator for calculating EMI, total interest, and amortization schedules
  */
 public class LoanCalculator {
     
+    // Shared by calculators created without their own cache and by the static helpers
+    private static final AnnuityFactorCache SHARED_FACTORS = new AnnuityFactorCache(1024);
+    
     private Calculator calculator;
+    private final AnnuityFactorCache annuityFactors;
     
     public LoanCalculator() {
+        this(SHARED_FACTORS);
+    }
+    
+    /**
+     * Creates a calculator that looks annuity factors up in the given cache
+     */
+    public LoanCalculator(AnnuityFactorCache annuityFactors) {
         this.calculator = new Calculator();
+        this.annuityFactors = annuityFactors;
     }
     
     /**
@@ -20,6 +34,15 @@ public class LoanCalculator {
      * @return Monthly EMI amount
      */
     public double calculateEMI(double principal, double annualRate, int tenureMonths) {
+        return emi(annuityFactors, principal, annualRate, tenureMonths);
+    }
+    
+    static double emi(double principal, double annualRate, int tenureMonths) {
+        return emi(SHARED_FACTORS, principal, annualRate, tenureMonths);
+    }
+    
+    private static double emi(AnnuityFactorCache annuityFactors, double principal,
+                              double annualRate, int tenureMonths) {
         if (principal <= 0) {
             throw new IllegalArgumentException("Principal must be positive");
         }
@@ -34,9 +57,7 @@ public class LoanCalculator {
             return principal / tenureMonths;
         }
         
-        double monthlyRate = annualRate / (12 * 100);
-        double power = Math.pow(1 + monthlyRate, tenureMonths);
-        double emi = principal * monthlyRate * power / (power - 1);
+        double emi = principal * annuityFactors.factor(annualRate, tenureMonths);
         
         return Math.round(emi * 100.0) / 100.0;
     }
@@ -96,17 +117,41 @@ public class LoanCalculator {
         }
         
         double monthlyRate = annualRate / (12 * 100);
-        double power = Math.pow(1 + monthlyRate, tenureMonths);
+        double power = annuityFactors.power(annualRate, tenureMonths);
         double maxPrincipal = maxEMI * (power - 1) / (monthlyRate * power);
         
         return Math.round(maxPrincipal * 100.0) / 100.0;
     }
     
     /**
-     * Calculates remaining principal after a certain number of payments
+     * Calculates remaining principal after a certain number of payments.
+     * Uses the closed-form annuity balance (see AmortizationSchedule), which
+     * matches paying the rounded EMI month by month within rounding.
      */
     public double calculateRemainingPrincipal(double principal, double annualRate, 
                                                int tenureMonths, int paidMonths) {
+        return remainingPrincipal(principal, annualRate, tenureMonths, paidMonths);
+    }
+    
+    /**
+     * Calculates remaining principal for a book of loans in parallel, one
+     * loan per index, writing each result into out
+     * @throws IllegalArgumentException if the arrays differ in length or any loan is invalid
+     */
+    public void calculateRemainingPrincipals(double[] principals, double[] annualRates,
+                                             int[] tenureMonths, int[] paidMonths, double[] out) {
+        int n = out.length;
+        if (principals.length != n || annualRates.length != n
+                || tenureMonths.length != n || paidMonths.length != n) {
+            throw new IllegalArgumentException("Array lengths differ");
+        }
+        
+        Arrays.parallelSetAll(out, i -> remainingPrincipal(principals[i], annualRates[i],
+                                                           tenureMonths[i], paidMonths[i]));
+    }
+    
+    private double remainingPrincipal(double principal, double annualRate,
+                                             int tenureMonths, int paidMonths) {
         if (paidMonths < 0 || paidMonths > tenureMonths) {
             throw new IllegalArgumentException("Invalid paid months");
         }
@@ -120,23 +165,26 @@ public class LoanCalculator {
         }
         
         double emi = calculateEMI(principal, annualRate, tenureMonths);
-        double monthlyRate = annualRate / (12 * 100);
-        double remaining = principal;
-        
-        for (int i = 0; i < paidMonths; i++) {
-            double interest = remaining * monthlyRate;
-            double principalPaid = emi - interest;
-            remaining = remaining - principalPaid;
-            
-            if (remaining < 0) {
-                remaining = 0;
-                break;
-            }
-        }
-        
+        double remaining = AmortizationSchedule.balanceAfter(principal, annualRate / (12 * 100), emi,
+                                                             tenureMonths, paidMonths);
         return Math.round(remaining * 100.0) / 100.0;
     }
     
+    /**
+     * Gets the cache of annuity factors used by this calculator
+     */
+    public AnnuityFactorCache getAnnuityFactorCache() {
+        return annuityFactors;
+    }
+    
+    /**
+     * Creates the amortization schedule of a loan, computed lazily row by row
+     */
+    public AmortizationSchedule createSchedule(double principal, double annualRate, int tenureMonths) {
+        double emi = calculateEMI(principal, annualRate, tenureMonths);
+        return new AmortizationSchedule(principal, annualRate, tenureMonths, emi);
+    }
+    
     /**
      * Calculates prepayment penalty based on remaining principal
      */
@@ -0,0 +1,70 @@
+package com.banking;
+
+/**
+ * Fixed-point money arithmetic on amounts held as long paise. All methods
+ * are static and work on primitives, so nothing is allocated. Sums that
+ * would overflow throw ArithmeticException instead of wrapping, and
+ * conversions from rupees and rate calculations round half to even
+ * (banker's rounding), so ties do not drift in one direction over many
+ * postings.
+ */
+public final class Money {
+    
+    /** Paise per rupee */
+    public static final long SCALE = 100;
+    
+    // Largest rupee amount whose paise value converts exactly through a double
+    private static final double MAX_EXACT_RUPEES = (1L << 53) / (double) SCALE;
+    
+    private Money() {
+    }
+    
+    /**
+     * Converts a rupee amount to paise, rounding half to even
+     * @throws ArithmeticException if the amount is not finite or too large
+     */
+    public static long ofRupees(double rupees) {
+        if (!isConvertible(rupees)) {
+            throw new ArithmeticException("Amount out of range: " + rupees);
+        }
+        return (long) Math.rint(rupees * SCALE);
+    }
+    
+    /**
+     * Checks if ofRupees would accept the amount
+     */
+    public static boolean isConvertible(double rupees) {
+        return Math.abs(rupees) <= MAX_EXACT_RUPEES;
+    }
+    
+    /**
+     * Converts paise to rupees
+     */
+    public static double toRupees(long minor) {
+        return minor / (double) SCALE;
+    }
+    
+    /**
+     * Adds two amounts
+     * @throws ArithmeticException on overflow
+     */
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+    
+    /**
+     * Subtracts b from a
+     * @throws ArithmeticException on overflow
+     */
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+    
+    /**
+     * Applies a fractional rate (e.g. 0.005 for half a percent) to an amount,
+     * rounding the result half to even
+     */
+    public static long applyRate(long minor, double rate) {
+        return (long) Math.rint(minor * rate);
+    }
+}
@@ -0,0 +1,236 @@
+package com.banking;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Month-end close over a ColumnarAccountStore. Runs interest accrual,
+ * maintenance charges, overdraft fees and upgrade eligibility as four
+ * phases, each split into fixed-size partitions processed by fork/join.
+ *
+ * Every account is processed independently and partition totals are
+ * combined in partition order, so the outcome does not depend on thread
+ * scheduling. A partition is the unit of restart: completed partitions
+ * are remembered, and calling run() again after a failure only processes
+ * what is left.
+ */
+public class MonthEndClose {
+    
+    public static final int PHASE_INTEREST = 0;
+    public static final int PHASE_MAINTENANCE = 1;
+    public static final int PHASE_OVERDRAFT_FEES = 2;
+    public static final int PHASE_UPGRADE_ELIGIBILITY = 3;
+    public static final int PHASE_COUNT = 4;
+    
+    // 16K accounts touch roughly 500 KB of columns, which stays within a core's L2 cache
+    private static final int DEFAULT_PARTITION_SIZE = 16 * 1024;
+    
+    private final ColumnarAccountStore store;
+    private final double annualRate;
+    private final ForkJoinPool pool;
+    private final int accountCount;
+    private final int partitionSize;
+    private final int partitionCount;
+    
+    private final boolean[][] completed;
+    private final long[][] partitionTotals;
+    private final boolean[] maintenancePaid;
+    private final long[] overdraftFees;
+    private final boolean[] upgradeEligible;
+    
+    public MonthEndClose(ColumnarAccountStore store, double annualRate) {
+        this(store, annualRate, DEFAULT_PARTITION_SIZE, ForkJoinPool.commonPool());
+    }
+    
+    public MonthEndClose(ColumnarAccountStore store, double annualRate,
+                         int partitionSize, ForkJoinPool pool) {
+        if (annualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("Partition size must be positive");
+        }
+        
+        this.store = store;
+        this.annualRate = annualRate;
+        this.pool = pool;
+        this.accountCount = store.size();
+        this.partitionSize = partitionSize;
+        this.partitionCount = (int) (((long) accountCount + partitionSize - 1) / partitionSize);
+        this.completed = new boolean[PHASE_COUNT][partitionCount];
+        this.partitionTotals = new long[PHASE_COUNT][partitionCount];
+        this.maintenancePaid = new boolean[accountCount];
+        this.overdraftFees = new long[accountCount];
+        this.upgradeEligible = new boolean[accountCount];
+    }
+    
+    /**
+     * Runs every phase over all partitions not yet completed
+     * @return totals and per-phase timings for this run
+     */
+    public Report run() {
+        long[] phaseNanos = new long[PHASE_COUNT];
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            long start = System.nanoTime();
+            pool.invoke(new PartitionTask(this, phase, 0, partitionCount));
+            phaseNanos[phase] = System.nanoTime() - start;
+        }
+        return new Report(phaseNanos, total(PHASE_INTEREST), total(PHASE_MAINTENANCE),
+                          total(PHASE_OVERDRAFT_FEES), (int) total(PHASE_UPGRADE_ELIGIBILITY));
+    }
+    
+    /**
+     * Runs one phase on one partition, unless it has already completed
+     */
+    public void runPartition(int phase, int partition) {
+        if (phase < 0 || phase >= PHASE_COUNT) {
+            throw new IllegalArgumentException("Invalid phase");
+        }
+        if (partition < 0 || partition >= partitionCount) {
+            throw new IllegalArgumentException("Invalid partition");
+        }
+        if (completed[phase][partition]) {
+            return;
+        }
+        
+        int from = partition * partitionSize;
+        int to = Math.min(accountCount, from + partitionSize);
+        long total;
+        switch (phase) {
+            case PHASE_INTEREST:
+                total = store.applyInterest(annualRate, from, to);
+                break;
+            case PHASE_MAINTENANCE:
+                total = store.deductMaintenanceCharges(from, to, maintenancePaid);
+                break;
+            case PHASE_OVERDRAFT_FEES:
+                total = store.calculateOverdraftFees(from, to, overdraftFees);
+                break;
+            default:
+                total = store.findUpgradeEligible(from, to, upgradeEligible);
+                break;
+        }
+        partitionTotals[phase][partition] = total;
+        completed[phase][partition] = true;
+    }
+    
+    /**
+     * Checks whether a phase has completed on a partition
+     */
+    public boolean isPartitionCompleted(int phase, int partition) {
+        return completed[phase][partition];
+    }
+    
+    /**
+     * Gets number of partitions per phase
+     */
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+    
+    /**
+     * Gets per-account maintenance results, false where the charge could not be paid
+     */
+    public boolean[] getMaintenancePaid() {
+        return maintenancePaid;
+    }
+    
+    /**
+     * Gets per-account overdraft fees in paise
+     */
+    public long[] getOverdraftFees() {
+        return overdraftFees;
+    }
+    
+    /**
+     * Gets per-account upgrade eligibility flags
+     */
+    public boolean[] getUpgradeEligible() {
+        return upgradeEligible;
+    }
+    
+    private long total(int phase) {
+        long total = 0;
+        for (int partition = 0; partition < partitionCount; partition++) {
+            total += partitionTotals[phase][partition];
+        }
+        return total;
+    }
+    
+    /**
+     * Splits a partition range in half until a single partition is left
+     */
+    private static final class PartitionTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final transient MonthEndClose close;
+        private final int phase;
+        private final int from;
+        private final int to;
+        
+        PartitionTask(MonthEndClose close, int phase, int from, int to) {
+            this.close = close;
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    close.runPartition(phase, from);
+                }
+                return;
+            }
+            
+            int mid = (from + to) >>> 1;
+            invokeAll(new PartitionTask(close, phase, from, mid), new PartitionTask(close, phase, mid, to));
+        }
+    }
+    
+    /**
+     * Totals (in paise) and per-phase wall-clock timings of a close run
+     */
+    public static final class Report {
+        
+        private final long[] phaseNanos;
+        private final long interestCredited;
+        private final long maintenanceCollected;
+        private final long overdraftFees;
+        private final int upgradeEligible;
+        
+        Report(long[] phaseNanos, long interestCredited, long maintenanceCollected,
+               long overdraftFees, int upgradeEligible) {
+            this.phaseNanos = phaseNanos;
+            this.interestCredited = interestCredited;
+            this.maintenanceCollected = maintenanceCollected;
+            this.overdraftFees = overdraftFees;
+            this.upgradeEligible = upgradeEligible;
+        }
+        
+        /**
+         * Gets time spent in a phase during this run, in nanoseconds
+         */
+        public long getPhaseNanos(int phase) {
+            return phaseNanos[phase];
+        }
+        
+        public long getInterestCredited() {
+            return interestCredited;
+        }
+        
+        public long getMaintenanceCollected() {
+            return maintenanceCollected;
+        }
+        
+        public long getOverdraftFees() {
+            return overdraftFees;
+        }
+        
+        public int getUpgradeEligible() {
+            return upgradeEligible;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.banking;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Account store kept outside the Java heap, for account counts where one
+ * object per account would dominate the heap and garbage collection.
+ * Each account is a fixed-width slot in a direct or memory-mapped buffer;
+ * an off-heap open-addressing table maps account numbers to slots.
+ *
+ * Accounts are read and updated through a Cursor, a reusable flyweight
+ * that follows the AccountManager rules for whichever slot it points at.
+ * Each account's balance, product and closed flag share one state word
+ * that every operation updates with a compare-and-set, as in
+ * ConcurrentAccountManager, so cursors in different threads may post to
+ * the same account. The store has a fixed capacity chosen up front.
+ */
+public class OffHeapAccountStore implements AutoCloseable {
+    
+    // Little-endian keeps mapped files portable and is the native order on x86 and ARM
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ORDER);
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+    
+    // Slot layout: account number, state word, overdraft limit (paise), transaction count, flags
+    public static final int SLOT_SIZE = 32;
+    private static final int ACCOUNT_OFFSET = 0;
+    private static final int STATE_OFFSET = 8;
+    private static final int OVERDRAFT_OFFSET = 16;
+    private static final int TRANSACTIONS_OFFSET = 24;
+    private static final int FLAGS_OFFSET = 28;
+    
+    // State word: balance in paise shifted left by STATE_BITS, bit 8 = closed,
+    // product code in the low byte
+    private static final int STATE_BITS = 9;
+    private static final long TYPE_MASK = 0xFF;
+    private static final long CLOSED = 1L << 8;
+    private static final long MAX_BALANCE_MINOR = Long.MAX_VALUE >> STATE_BITS;
+    
+    // Flags: set once the slot holds an account
+    private static final int IN_USE = 1;
+    
+    private static final int CHUNK_SHIFT = 20; // 1M slots, 32 MB per chunk
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int INDEX_CHUNK_SHIFT = 24; // 16M entries, 64 MB per chunk
+    private static final int INDEX_CHUNK_ENTRIES = 1 << INDEX_CHUNK_SHIFT;
+    
+    private static final Calculator CALCULATOR = new Calculator();
+    
+    private final ProductCatalog catalog;
+    private final int capacity;
+    private final ByteBuffer[] slots;
+    private final ByteBuffer[] index; // slot + 1 per entry, 0 = empty
+    private final long indexMask;
+    private final FileChannel channel;
+    private volatile int size;
+    
+    /**
+     * Creates a store in direct memory
+     */
+    public OffHeapAccountStore(int capacity) {
+        this(capacity, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Creates a store in direct memory whose accounts take their rules from the given catalog
+     */
+    public OffHeapAccountStore(int capacity, ProductCatalog catalog) {
+        this(capacity, catalog, null);
+    }
+    
+    private OffHeapAccountStore(int capacity, ProductCatalog catalog, FileChannel channel) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        
+        this.catalog = catalog;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.slots = new ByteBuffer[(int) (((long) capacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT)];
+        
+        long indexEntries = Long.highestOneBit(capacity) * 4L;
+        this.indexMask = indexEntries - 1;
+        this.index = new ByteBuffer[(int) ((indexEntries + INDEX_CHUNK_ENTRIES - 1) >>> INDEX_CHUNK_SHIFT)];
+        for (int i = 0; i < index.length; i++) {
+            long entries = Math.min(INDEX_CHUNK_ENTRIES, indexEntries - ((long) i << INDEX_CHUNK_SHIFT));
+            index[i] = ByteBuffer.allocateDirect((int) entries * Integer.BYTES).order(ORDER);
+        }
+        if (channel == null) {
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = ByteBuffer.allocateDirect(chunkSlots(i) * SLOT_SIZE).order(ORDER);
+            }
+        }
+    }
+    
+    /**
+     * Opens a store backed by a memory-mapped file, creating the file if needed.
+     * Accounts already in the file are kept and re-indexed.
+     */
+    public static OffHeapAccountStore map(Path file, int capacity, ProductCatalog catalog) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OffHeapAccountStore store = new OffHeapAccountStore(capacity, catalog, channel);
+        for (int i = 0; i < store.slots.length; i++) {
+            store.slots[i] = channel.map(FileChannel.MapMode.READ_WRITE, ((long) i << CHUNK_SHIFT) * SLOT_SIZE,
+                                         (long) store.chunkSlots(i) * SLOT_SIZE).order(ORDER);
+        }
+        
+        int count = 0;
+        while (count < capacity && (store.flags(count) & IN_USE) != 0) {
+            store.insertIndex(store.accountNumber(count), count);
+            count++;
+        }
+        store.size = count;
+        return store;
+    }
+    
+    /**
+     * Adds a new account
+     * @return slot of the account
+     */
+    public synchronized int add(long accountNumber, String accountType, double initialBalance) {
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Initial balance cannot be negative");
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("Account store is full");
+        }
+        if (indexOf(accountNumber) >= 0) {
+            throw new IllegalArgumentException("Duplicate account number: " + accountNumber);
+        }
+        
+        ProductPolicy policy = catalog.resolve(accountType);
+        int slot = size;
+        ByteBuffer chunk = chunkFor(slot);
+        int offset = offsetOf(slot);
+        long balance = Money.ofRupees(initialBalance);
+        if (balance > MAX_BALANCE_MINOR) {
+            throw new IllegalArgumentException("Initial balance is too large");
+        }
+        chunk.putLong(offset + ACCOUNT_OFFSET, accountNumber);
+        chunk.putLong(offset + STATE_OFFSET, balance << STATE_BITS | (policy.getCode() & TYPE_MASK));
+        chunk.putLong(offset + OVERDRAFT_OFFSET, policy.getOverdraftLimitMinor());
+        chunk.putInt(offset + TRANSACTIONS_OFFSET, 0);
+        INTS.setRelease(chunk, offset + FLAGS_OFFSET, IN_USE);
+        insertIndex(accountNumber, slot);
+        size = slot + 1;
+        return slot;
+    }
+    
+    /**
+     * Finds the slot of an account number
+     * @return the slot, or -1 if the account is not in the store
+     */
+    public int indexOf(long accountNumber) {
+        long entry = hash(accountNumber) & indexMask;
+        while (true) {
+            int value = indexEntry(entry);
+            if (value == 0) {
+                return -1;
+            }
+            if (accountNumber(value - 1) == accountNumber) {
+                return value - 1;
+            }
+            entry = (entry + 1) & indexMask;
+        }
+    }
+    
+    /**
+     * Creates a cursor; each thread should use its own
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Gets number of accounts in the store
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the maximum number of accounts
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Forces a mapped store to disk and releases the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+    
+    /**
+     * Flyweight view of one account slot with the AccountManager operations
+     */
+    public final class Cursor {
+        
+        private ByteBuffer chunk;
+        private int offset = -1;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Points the cursor at a slot
+         */
+        public Cursor at(int slot) {
+            if (slot < 0 || slot >= size) {
+                throw new IllegalArgumentException("Invalid account slot");
+            }
+            chunk = chunkFor(slot);
+            offset = offsetOf(slot);
+            return this;
+        }
+        
+        /**
+         * Points the cursor at an account number
+         * @return false if the account is not in the store
+         */
+        public boolean find(long accountNumber) {
+            int slot = indexOf(accountNumber);
+            if (slot < 0) {
+                return false;
+            }
+            at(slot);
+            return true;
+        }
+        
+        /**
+         * Deposits amount into account
+         * @throws ArithmeticException if the balance would overflow
+         */
+        public boolean deposit(double amount) {
+            long current = state();
+            checkActive(current);
+            if (amount <= 0) {
+                return false;
+            }
+            if (amount > 1000000) {
+                throw new IllegalArgumentException("Single deposit cannot exceed 10 lakhs");
+            }
+            
+            long minor = Money.ofRupees(amount);
+            while (true) {
+                checkActive(current);
+                long next = credit(current, minor);
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET, current, next);
+                if (witness == current) {
+                    break;
+                }
+                current = witness;
+            }
+            INTS.getAndAdd(chunk, offset + TRANSACTIONS_OFFSET, 1);
+            return true;
+        }
+        
+        /**
+         * Withdraws amount from account
+         */
+        public boolean withdraw(double amount) {
+            long current = state();
+            checkActive(current);
+            if (amount <= 0) {
+                return false;
+            }
+            
+            // Too large to hold in paise is more than any balance can cover
+            if (amount == amount && !Money.isConvertible(amount)) {
+                return false;
+            }
+            
+            long minor = Money.ofRupees(amount);
+            while (true) {
+                checkActive(current);
+                // The product is read from the same word, so an upgrade cannot slip in between
+                ProductPolicy policy = catalog.get((byte) (current & TYPE_MASK));
+                if (minor - balanceOf(current) > policy.getOverdraftLimitMinor()) {
+                    return false;
+                }
+                if (minor > policy.getWithdrawalCapMinor()) {
+                    throw new IllegalArgumentException("Withdrawal limit exceeded for savings account");
+                }
+                
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET,
+                                                               current, current - (minor << STATE_BITS));
+                if (witness == current) {
+                    break;
+                }
+                current = witness;
+            }
+            INTS.getAndAdd(chunk, offset + TRANSACTIONS_OFFSET, 1);
+            return true;
+        }
+        
+        /**
+         * Calculates monthly interest for savings account
+         */
+        public double calculateMonthlyInterest(double annualRate) {
+            return Money.toRupees(interestFor(state(), annualRate));
+        }
+        
+        /**
+         * Applies monthly interest to account
+         */
+        public void applyInterest(double annualRate) {
+            long current = state();
+            while (true) {
+                long interest = interestFor(current, annualRate);
+                if (interest <= 0) {
+                    return;
+                }
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET,
+                                                               current, credit(current, interest));
+                if (witness == current) {
+                    return;
+                }
+                current = witness;
+            }
+        }
+        
+        /**
+         * Calculates maintenance charge for the current balance
+         */
+        public double calculateMaintenanceCharge() {
+            return Money.toRupees(maintenanceCharge(state()));
+        }
+        
+        /**
+         * Deducts maintenance charges from account
+         */
+        public boolean deductMaintenanceCharge() {
+            long current = state();
+            while (true) {
+                long charge = maintenanceCharge(current);
+                if (charge == 0) {
+                    return true;
+                }
+                if (balanceOf(current) < charge) {
+                    return false;
+                }
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET,
+                                                               current, current - (charge << STATE_BITS));
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+        }
+        
+        /**
+         * Calculates overdraft fee
+         */
+        public double calculateOverdraftFee() {
+            long balance = getBalanceMinor();
+            if (balance >= 0) {
+                return 0.0;
+            }
+            
+            double overdraftAmount = CALCULATOR.abs((int) (balance / Money.SCALE));
+            if (overdraftAmount > 0 && overdraftAmount <= 10000) {
+                return 500;
+            } else if (overdraftAmount > 10000) {
+                return 1000;
+            }
+            return 0.0;
+        }
+        
+        /**
+         * Checks if account qualifies for upgrade
+         */
+        public boolean canUpgrade() {
+            long current = state();
+            return policyOf(current).qualifiesForUpgrade(balanceOf(current), getTransactionCount());
+        }
+        
+        /**
+         * Upgrades account type
+         */
+        public boolean upgradeAccount(String newType) {
+            long current = state();
+            ProductPolicy target;
+            while (true) {
+                ProductPolicy policy = policyOf(current);
+                if (!policy.qualifiesForUpgrade(balanceOf(current), getTransactionCount())
+                        || !policy.canUpgradeTo(newType)) {
+                    return false;
+                }
+                
+                target = catalog.resolve(newType);
+                long next = (current & ~TYPE_MASK) | (target.getCode() & TYPE_MASK);
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET, current, next);
+                if (witness == current) {
+                    break;
+                }
+                current = witness;
+            }
+            // Kept for readers of the slot; postings take the limit from the product in the state word
+            chunk.putLong(offset + OVERDRAFT_OFFSET, target.getOverdraftLimitMinor());
+            return true;
+        }
+        
+        /**
+         * Closes the account
+         */
+        public boolean closeAccount() {
+            long current = state();
+            while (true) {
+                if (balanceOf(current) < 0) {
+                    return false; // Cannot close account with negative balance
+                }
+                long witness = (long) LONGS.compareAndExchange(chunk, offset + STATE_OFFSET,
+                                                               current, current | CLOSED);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+        }
+        
+        public long getAccountNumber() {
+            return chunk.getLong(offset + ACCOUNT_OFFSET);
+        }
+        
+        public double getBalance() {
+            return Money.toRupees(getBalanceMinor());
+        }
+        
+        public long getBalanceMinor() {
+            return balanceOf(state());
+        }
+        
+        public String getAccountType() {
+            return policyOf(state()).getName();
+        }
+        
+        public double getOverdraftLimit() {
+            return Money.toRupees(policyOf(state()).getOverdraftLimitMinor());
+        }
+        
+        public double getAvailableBalance() {
+            long current = state();
+            return Money.toRupees(Money.add(balanceOf(current), policyOf(current).getOverdraftLimitMinor()));
+        }
+        
+        public int getTransactionCount() {
+            return (int) INTS.getVolatile(chunk, offset + TRANSACTIONS_OFFSET);
+        }
+        
+        public boolean isActive() {
+            return (state() & CLOSED) == 0;
+        }
+        
+        public boolean isOverdrawn() {
+            return getBalanceMinor() < 0;
+        }
+        
+        private long state() {
+            if (offset < 0) {
+                throw new IllegalStateException("Cursor is not positioned");
+            }
+            return (long) LONGS.getVolatile(chunk, offset + STATE_OFFSET);
+        }
+        
+        private ProductPolicy policyOf(long stateWord) {
+            return catalog.get((byte) (stateWord & TYPE_MASK));
+        }
+        
+        private long interestFor(long stateWord, double annualRate) {
+            if (annualRate < 0) {
+                throw new IllegalArgumentException("Interest rate cannot be negative");
+            }
+            long balance = balanceOf(stateWord);
+            if (!policyOf(stateWord).isInterestEligible() || balance < 0) {
+                return 0;
+            }
+            return Money.applyRate(balance, annualRate / 12 / 100);
+        }
+        
+        private long maintenanceCharge(long stateWord) {
+            if ((stateWord & CLOSED) != 0) {
+                return 0;
+            }
+            return policyOf(stateWord).maintenanceChargeFor(balanceOf(stateWord));
+        }
+    }
+    
+    private static long balanceOf(long stateWord) {
+        return stateWord >> STATE_BITS;
+    }
+    
+    /**
+     * Adds a credit to a state word
+     * @throws ArithmeticException if the balance would leave the range the word holds
+     */
+    private static long credit(long stateWord, long minor) {
+        if (balanceOf(stateWord) > MAX_BALANCE_MINOR - minor) {
+            throw new ArithmeticException("Balance overflow");
+        }
+        return stateWord + (minor << STATE_BITS);
+    }
+    
+    private static void checkActive(long stateWord) {
+        if ((stateWord & CLOSED) != 0) {
+            throw new IllegalStateException("Account is not active");
+        }
+    }
+    
+    private int chunkSlots(int chunk) {
+        return (int) Math.min(CHUNK_SLOTS, (long) capacity - ((long) chunk << CHUNK_SHIFT));
+    }
+    
+    private ByteBuffer chunkFor(int slot) {
+        return slots[slot >>> CHUNK_SHIFT];
+    }
+    
+    private static int offsetOf(int slot) {
+        return (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+    }
+    
+    private long accountNumber(int slot) {
+        return chunkFor(slot).getLong(offsetOf(slot) + ACCOUNT_OFFSET);
+    }
+    
+    private int flags(int slot) {
+        return (int) INTS.getAcquire(chunkFor(slot), offsetOf(slot) + FLAGS_OFFSET);
+    }
+    
+    private int indexEntry(long entry) {
+        return (int) INTS.getAcquire(index[(int) (entry >>> INDEX_CHUNK_SHIFT)],
+                                     (int) (entry & (INDEX_CHUNK_ENTRIES - 1)) * Integer.BYTES);
+    }
+    
+    private void insertIndex(long accountNumber, int slot) {
+        long entry = hash(accountNumber) & indexMask;
+        while (indexEntry(entry) != 0) {
+            entry = (entry + 1) & indexMask;
+        }
+        INTS.setRelease(index[(int) (entry >>> INDEX_CHUNK_SHIFT)],
+                        (int) (entry & (INDEX_CHUNK_ENTRIES - 1)) * Integer.BYTES, slot + 1);
+    }
+    
+    private static long hash(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+}
@@ -0,0 +1,173 @@
+package com.banking;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live index of accounts that owe an overdraft fee, bucketed by fee tier,
+ * so the nightly fee run visits only overdrawn accounts instead of
+ * scanning the whole registry. Used as a PostingListener, the index moves
+ * an account between tiers whenever a posting changes which tier its
+ * balance falls in.
+ *
+ * Tiers follow calculateOverdraftFee: up to 10,000 rupees overdrawn is
+ * the low tier, anything more the high tier. Balances less than a rupee
+ * below zero attract no fee and are not indexed.
+ */
+public class OverdrawnIndex implements PostingListener {
+    
+    public static final int TIER_NONE = 0;
+    public static final int TIER_LOW = 1;
+    public static final int TIER_HIGH = 2;
+    
+    private static final long TIER_LOW_FEE_MINOR = 500 * Money.SCALE;
+    private static final long TIER_HIGH_FEE_MINOR = 1000 * Money.SCALE;
+    private static final long TIER_LOW_LIMIT_RUPEES = 10000;
+    
+    private final ConcurrentHashMap<Long, ConcurrentAccountManager> low = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentAccountManager> high = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates an index seeded with the overdrawn accounts of a registry.
+     * Attach it as (part of) the registry's posting listener before seeding
+     * so postings made during the scan are not missed, and seed while the
+     * registry is quiet: the scan does not re-check an account it has read.
+     */
+    public static OverdrawnIndex of(AccountRegistry registry) {
+        OverdrawnIndex index = new OverdrawnIndex();
+        index.rebuild(registry);
+        return index;
+    }
+    
+    /**
+     * Re-checks every account of a registry
+     */
+    public void rebuild(AccountRegistry registry) {
+        for (int shard = 0; shard < registry.shardCount(); shard++) {
+            registry.forEachInShard(shard, (accountNumber, account) -> update(account));
+        }
+    }
+    
+    /**
+     * Moves the account only when the posting changes its tier. An account's
+     * postings are reported one at a time and in order, so the balance before
+     * the posting follows from the balance after it and the amount.
+     */
+    @Override
+    public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                          long balanceAfterMinor, long counterparty) {
+        int tier = tierOf(balanceAfterMinor);
+        long balanceBeforeMinor = balanceAfterMinor - PostingType.signedAmount(type, amountMinor);
+        if (tier != tierOf(balanceBeforeMinor)) {
+            place(account.getAccountNumber(), account, tier);
+        }
+    }
+    
+    /**
+     * Brings one account's entry in line with its current balance
+     */
+    public void update(ConcurrentAccountManager account) {
+        place(account.getAccountNumber(), account, tierOf(account.getBalanceMinor()));
+    }
+    
+    /**
+     * Gets the fee tier of a balance
+     */
+    public static int tierOf(long balanceMinor) {
+        if (balanceMinor >= 0) {
+            return TIER_NONE;
+        }
+        long overdrawnRupees = -(balanceMinor / Money.SCALE);
+        if (overdrawnRupees == 0) {
+            return TIER_NONE;
+        }
+        return overdrawnRupees <= TIER_LOW_LIMIT_RUPEES ? TIER_LOW : TIER_HIGH;
+    }
+    
+    /**
+     * Gets the overdraft fee of a tier, in paise
+     */
+    public static long feeMinor(int tier) {
+        switch (tier) {
+            case TIER_LOW:
+                return TIER_LOW_FEE_MINOR;
+            case TIER_HIGH:
+                return TIER_HIGH_FEE_MINOR;
+            default:
+                return 0;
+        }
+    }
+    
+    /**
+     * Visits the accounts in one tier
+     */
+    public void forEachInTier(int tier, AccountRegistry.AccountVisitor visitor) {
+        tierMap(tier).forEach(visitor::visit);
+    }
+    
+    /**
+     * Runs the overdraft fee pass over the indexed accounts only
+     * @return total fees in paise
+     */
+    public long calculateOverdraftFees(FeeVisitor visitor) {
+        long total = 0;
+        for (int tier = TIER_LOW; tier <= TIER_HIGH; tier++) {
+            long fee = feeMinor(tier);
+            for (ConcurrentAccountManager account : tierMap(tier).values()) {
+                visitor.visit(account, fee);
+                total += fee;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Checks whether an account is indexed as owing a fee
+     */
+    public boolean contains(long accountNumber) {
+        return low.containsKey(accountNumber) || high.containsKey(accountNumber);
+    }
+    
+    /**
+     * Gets number of accounts in a tier
+     */
+    public int count(int tier) {
+        return tierMap(tier).size();
+    }
+    
+    /**
+     * Gets number of indexed accounts
+     */
+    public int size() {
+        return low.size() + high.size();
+    }
+    
+    /**
+     * Callback for the fee run
+     */
+    public interface FeeVisitor {
+        void visit(ConcurrentAccountManager account, long feeMinor);
+    }
+    
+    private void place(Long accountNumber, ConcurrentAccountManager account, int tier) {
+        if (tier == TIER_LOW) {
+            high.remove(accountNumber);
+            low.put(accountNumber, account);
+        } else if (tier == TIER_HIGH) {
+            low.remove(accountNumber);
+            high.put(accountNumber, account);
+        } else {
+            low.remove(accountNumber);
+            high.remove(accountNumber);
+        }
+    }
+    
+    private ConcurrentHashMap<Long, ConcurrentAccountManager> tierMap(int tier) {
+        if (tier == TIER_LOW) {
+            return low;
+        }
+        if (tier == TIER_HIGH) {
+            return high;
+        }
+        throw new IllegalArgumentException("Invalid tier: " + tier);
+    }
+}
@@ -0,0 +1,333 @@
+package com.banking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of account postings, written through a memory-mapped
+ * file. Each posting is a fixed-size binary record; its sequence number is
+ * also its slot in the file. Records are made durable with group commit:
+ * one force() covers every record appended before it, so concurrent
+ * writers share the cost of a disk flush.
+ *
+ * Used as a PostingListener, the journal records every posting of the
+ * accounts it is attached to and, depending on the durability mode,
+ * waits for the records to reach disk before the operation returns. The
+ * wait happens in flush, after the account claims are released, so other
+ * threads never spin on an account through a disk flush.
+ *
+ * Opening a journal truncates the file after the last valid record, so
+ * stale records from before a torn write can never follow new ones.
+ */
+public class PostingJournal implements PostingListener, AutoCloseable {
+    
+    /**
+     * When appended records are forced to disk
+     */
+    public enum Durability {
+        /** Each operation forces its own records before it returns */
+        PER_OPERATION,
+        /** Each operation waits for a shared group force covering its records */
+        PER_BATCH,
+        /** A background thread forces periodically; a crash may lose the last interval */
+        ASYNC
+    }
+    
+    // Record layout: sequence, account, counterparty, amount, balance after, type, checksum
+    public static final int RECORD_SIZE = 48;
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int ACCOUNT_OFFSET = 8;
+    private static final int COUNTERPARTY_OFFSET = 16;
+    private static final int AMOUNT_OFFSET = 24;
+    private static final int BALANCE_OFFSET = 32;
+    private static final int TYPE_OFFSET = 40;
+    private static final int CHECKSUM_OFFSET = 44;
+    
+    private static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    private static final long ASYNC_INTERVAL_MILLIS = 10;
+    
+    private final FileChannel channel;
+    private final Durability durability;
+    private final int segmentRecords;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+    
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[] {-1});
+    private final Object appendLock = new Object();
+    private final Object forceLock = new Object();
+    private long nextSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    
+    /**
+     * Opens a journal file, creating it if needed, and positions the writer
+     * after the last valid record, discarding anything beyond it
+     */
+    public PostingJournal(Path file, Durability durability) throws IOException {
+        this(file, durability, DEFAULT_SEGMENT_RECORDS);
+    }
+    
+    /**
+     * Opens a journal file mapped in segments of the given number of records
+     */
+    public PostingJournal(Path file, Durability durability, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        
+        this.durability = durability;
+        this.segmentRecords = segmentRecords;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.nextSequence = countValidRecords(channel);
+        this.durableSequence = nextSequence;
+        if (channel.size() > nextSequence * RECORD_SIZE) {
+            // Segments mapped later read back as zeros past the valid tail
+            channel.truncate(nextSequence * RECORD_SIZE);
+            channel.force(true);
+        }
+        
+        if (durability == Durability.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "posting-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(() -> sync(Long.MAX_VALUE), ASYNC_INTERVAL_MILLIS,
+                                           ASYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+    
+    /**
+     * Appends one record without waiting for it to reach disk
+     * @return sequence number of the record
+     */
+    public long append(byte type, long accountNumber, long counterparty,
+                       long amountMinor, long balanceAfterMinor) {
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            
+            long sequence = nextSequence;
+            MappedByteBuffer segment = segmentFor(sequence);
+            int offset = (int) (sequence % segmentRecords) * RECORD_SIZE;
+            segment.putLong(offset + SEQUENCE_OFFSET, sequence);
+            segment.putLong(offset + ACCOUNT_OFFSET, accountNumber);
+            segment.putLong(offset + COUNTERPARTY_OFFSET, counterparty);
+            segment.putLong(offset + AMOUNT_OFFSET, amountMinor);
+            segment.putLong(offset + BALANCE_OFFSET, balanceAfterMinor);
+            segment.putInt(offset + TYPE_OFFSET, type);
+            segment.putInt(offset + CHECKSUM_OFFSET, checksum(sequence, type, accountNumber,
+                                                              counterparty, amountMinor,
+                                                              balanceAfterMinor));
+            nextSequence = sequence + 1;
+            return sequence;
+        }
+    }
+    
+    /**
+     * Forces records to disk until every record below the given sequence is durable.
+     * Callers that arrive while another thread is forcing wait for it and usually
+     * find their records already covered.
+     */
+    public void sync(long upToSequence) {
+        if (durableSequence >= upToSequence) {
+            return;
+        }
+        
+        synchronized (forceLock) {
+            if (durableSequence >= upToSequence) {
+                return;
+            }
+            
+            long target;
+            List<MappedByteBuffer> dirty;
+            synchronized (appendLock) {
+                target = nextSequence;
+                if (target == durableSequence) {
+                    return;
+                }
+                int first = (int) (durableSequence / segmentRecords);
+                int last = (int) ((target - 1) / segmentRecords);
+                dirty = new ArrayList<>(segments.subList(first, last + 1));
+            }
+            
+            for (MappedByteBuffer segment : dirty) {
+                segment.force();
+            }
+            durableSequence = target;
+        }
+    }
+    
+    @Override
+    public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                          long balanceAfterMinor, long counterparty) {
+        long sequence = append(type, account.getAccountNumber(), counterparty,
+                               amountMinor, balanceAfterMinor);
+        if (durability == Durability.PER_OPERATION) {
+            // Runs under the account claim; the force waits for flush
+            lastAppended.get()[0] = sequence;
+        }
+    }
+    
+    @Override
+    public void flush() {
+        if (durability == Durability.PER_OPERATION) {
+            long[] last = lastAppended.get();
+            if (last[0] >= 0) {
+                sync(last[0] + 1);
+                last[0] = -1;
+            }
+        } else if (durability == Durability.PER_BATCH) {
+            sync(getNextSequence());
+        }
+    }
+    
+    /**
+     * Gets the sequence number the next record will receive
+     */
+    public long getNextSequence() {
+        synchronized (appendLock) {
+            return nextSequence;
+        }
+    }
+    
+    /**
+     * Gets the number of leading records known to be on disk
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+    
+    /**
+     * Gets durability mode
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+    
+    /**
+     * Forces outstanding records and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        sync(Long.MAX_VALUE);
+        synchronized (appendLock) {
+            closed = true;
+            segments.clear();
+        }
+        channel.close();
+    }
+    
+    /**
+     * Reads records from a journal file in sequence order, starting at the given
+     * sequence and stopping at the first missing or torn record
+     * @return sequence number after the last record visited
+     */
+    public static long read(Path file, long fromSequence, RecordVisitor visitor) throws IOException {
+        return read(file, fromSequence, Long.MAX_VALUE, visitor);
+    }
+    
+    /**
+     * Reads records in [fromSequence, toSequence), stopping early at the first
+     * missing or torn record
+     * @return sequence number after the last record visited
+     */
+    public static long read(Path file, long fromSequence, long toSequence,
+                            RecordVisitor visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return scan(in, Math.max(0, fromSequence), toSequence, visitor);
+        }
+    }
+    
+    /**
+     * Callback for journal reads
+     */
+    public interface RecordVisitor {
+        void visit(long sequence, byte type, long accountNumber, long counterparty,
+                   long amountMinor, long balanceAfterMinor);
+    }
+    
+    private MappedByteBuffer segmentFor(long sequence) {
+        int index = (int) (sequence / segmentRecords);
+        while (segments.size() <= index) {
+            long position = (long) segments.size() * segmentRecords * RECORD_SIZE;
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position,
+                                         (long) segmentRecords * RECORD_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot extend journal", e);
+            }
+        }
+        return segments.get(index);
+    }
+    
+    private static long countValidRecords(FileChannel channel) throws IOException {
+        return scan(channel, 0, Long.MAX_VALUE, null);
+    }
+    
+    /**
+     * Visits valid records from a sequence onwards, mapping the file one window at a time
+     */
+    private static long scan(FileChannel in, long sequence, long end,
+                             RecordVisitor visitor) throws IOException {
+        long records = Math.min(end, in.size() / RECORD_SIZE);
+        while (sequence < records) {
+            long windowRecords = Math.min(DEFAULT_SEGMENT_RECORDS, records - sequence);
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, sequence * RECORD_SIZE,
+                                             windowRecords * RECORD_SIZE);
+            for (int i = 0; i < windowRecords; i++, sequence++) {
+                int offset = i * RECORD_SIZE;
+                if (!isValid(window, offset, sequence)) {
+                    return sequence;
+                }
+                if (visitor != null) {
+                    visitor.visit(sequence, (byte) window.getInt(offset + TYPE_OFFSET),
+                                  window.getLong(offset + ACCOUNT_OFFSET),
+                                  window.getLong(offset + COUNTERPARTY_OFFSET),
+                                  window.getLong(offset + AMOUNT_OFFSET),
+                                  window.getLong(offset + BALANCE_OFFSET));
+                }
+            }
+        }
+        return sequence;
+    }
+    
+    private static boolean isValid(MappedByteBuffer buffer, int offset, long sequence) {
+        if (buffer.getLong(offset + SEQUENCE_OFFSET) != sequence) {
+            return false;
+        }
+        int type = buffer.getInt(offset + TYPE_OFFSET);
+        if (type < Byte.MIN_VALUE || type > Byte.MAX_VALUE || !PostingType.isValid((byte) type)) {
+            return false;
+        }
+        return buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(sequence, (byte) type,
+                buffer.getLong(offset + ACCOUNT_OFFSET), buffer.getLong(offset + COUNTERPARTY_OFFSET),
+                buffer.getLong(offset + AMOUNT_OFFSET), buffer.getLong(offset + BALANCE_OFFSET));
+    }
+    
+    private static int checksum(long sequence, byte type, long accountNumber, long counterparty,
+                                long amountMinor, long balanceAfterMinor) {
+        long hash = sequence * 0x9E3779B97F4A7C15L + type;
+        hash = (hash ^ accountNumber) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ counterparty) * 0x94d049bb133111ebL;
+        hash = (hash ^ amountMinor) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ balanceAfterMinor) * 0x94d049bb133111ebL;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
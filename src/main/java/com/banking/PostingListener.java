@@ -0,0 +1,51 @@
+package com.banking;
+
+/**
+ * Receives every mutation applied to a ConcurrentAccountManager.
+ * onPosting is called once per posting after it has been applied;
+ * flush is called once at the end of each public operation, which may
+ * have reported several postings (a transfer reports two).
+ */
+public interface PostingListener {
+    
+    /**
+     * Reports one applied posting
+     * @param account the account that changed
+     * @param type a PostingType code
+     * @param amountMinor posting amount in paise, always non-negative
+     * @param balanceAfterMinor account balance in paise right after the posting
+     * @param counterparty the other account number for transfers, the AccountType
+     *                     code for OPEN and UPGRADE, otherwise 0
+     */
+    void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                   long balanceAfterMinor, long counterparty);
+    
+    /**
+     * Called when the operation that reported the preceding postings returns
+     */
+    default void flush() {
+    }
+    
+    /**
+     * Combines listeners so that each receives every posting and flush, in order
+     */
+    static PostingListener compose(PostingListener... listeners) {
+        PostingListener[] copy = listeners.clone();
+        return new PostingListener() {
+            @Override
+            public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                                  long balanceAfterMinor, long counterparty) {
+                for (PostingListener listener : copy) {
+                    listener.onPosting(account, type, amountMinor, balanceAfterMinor, counterparty);
+                }
+            }
+            
+            @Override
+            public void flush() {
+                for (PostingListener listener : copy) {
+                    listener.flush();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking;
+
+/**
+ * Compact codes for the kinds of account mutation reported to a PostingListener
+ * and recorded in the posting journal
+ */
+public final class PostingType {
+    
+    public static final byte OPEN = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAWAL = 3;
+    public static final byte TRANSFER_OUT = 4;
+    public static final byte TRANSFER_IN = 5;
+    public static final byte INTEREST = 6;
+    public static final byte MAINTENANCE_CHARGE = 7;
+    public static final byte UPGRADE = 8;
+    public static final byte CLOSE = 9;
+    
+    private PostingType() {
+    }
+    
+    /**
+     * Checks if a code is a known posting type
+     */
+    public static boolean isValid(byte type) {
+        return type >= OPEN && type <= CLOSE;
+    }
+    
+    /**
+     * Checks if a posting of this type adds to the account's transaction count
+     */
+    public static boolean isCounted(byte type) {
+        switch (type) {
+            case DEPOSIT:
+            case WITHDRAWAL:
+            case TRANSFER_OUT:
+            case TRANSFER_IN:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Gets the signed balance change a posting of this type applies for an amount
+     */
+    public static long signedAmount(byte type, long amountMinor) {
+        switch (type) {
+            case OPEN:
+            case DEPOSIT:
+            case TRANSFER_IN:
+            case INTEREST:
+                return amountMinor;
+            case WITHDRAWAL:
+            case TRANSFER_OUT:
+            case MAINTENANCE_CHARGE:
+                return -amountMinor;
+            default:
+                return 0;
+        }
+    }
+}
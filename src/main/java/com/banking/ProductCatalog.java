@@ -0,0 +1,237 @@
+package com.banking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Set of account products, looked up by name when an account is created
+ * and by code where accounts are stored as columns. Names not in the
+ * catalog follow the Regular rules, as they always have in AccountManager.
+ *
+ * Besides the built-in Regular, Savings and Premium products, a catalog
+ * can be loaded from a properties file. Keys have the form
+ * product.NAME.FIELD, with amounts in rupees:
+ *
+ *   product.Gold.code=3                       (required for new products)
+ *   product.Gold.overdraftLimit=75000
+ *   product.Gold.withdrawalCap=none
+ *   product.Gold.maintenanceCharge=750
+ *   product.Gold.maintenanceWaiverBalance=none
+ *   product.Gold.interestEligible=false
+ *   product.Gold.upgradeMinBalance=0
+ *   product.Gold.upgradeMinTransactions=0
+ *   product.Gold.upgradeTargets=Premium
+ *
+ * Every amount but overdraftLimit may be "none" for no limit. Fields
+ * left out keep the built-in value for built-in products and
+ * default to no overdraft, no cap, no charge, no interest and no upgrade
+ * for new ones.
+ */
+public final class ProductCatalog {
+    
+    private static final String PREFIX = "product.";
+    
+    private static final ProductCatalog DEFAULTS = new ProductCatalog(new ProductPolicy[] {
+        new ProductPolicy(AccountType.REGULAR, "Regular", 10000 * Money.SCALE, ProductPolicy.NO_LIMIT,
+                          300 * Money.SCALE, 5000 * Money.SCALE, false, 0, 0),
+        new ProductPolicy(AccountType.SAVINGS, "Savings", 0, 50000 * Money.SCALE,
+                          500 * Money.SCALE, 10000 * Money.SCALE, true, 100000 * Money.SCALE, 20, "Premium"),
+        new ProductPolicy(AccountType.PREMIUM, "Premium", 50000 * Money.SCALE, ProductPolicy.NO_LIMIT,
+                          1000 * Money.SCALE, ProductPolicy.NO_LIMIT, false, 0, 0)
+    });
+    
+    private final ProductPolicy[] byCode;
+    private final Map<String, ProductPolicy> byName;
+    private final ProductPolicy fallback;
+    
+    private ProductCatalog(ProductPolicy[] policies) {
+        int maxCode = 0;
+        for (ProductPolicy policy : policies) {
+            maxCode = Math.max(maxCode, policy.getCode());
+        }
+        
+        byCode = new ProductPolicy[maxCode + 1];
+        byName = new HashMap<>();
+        for (ProductPolicy policy : policies) {
+            if (byCode[policy.getCode()] != null) {
+                throw new IllegalArgumentException("Duplicate product code: " + policy.getCode());
+            }
+            if (byName.put(policy.getName(), policy) != null) {
+                throw new IllegalArgumentException("Duplicate product name: " + policy.getName());
+            }
+            byCode[policy.getCode()] = policy;
+        }
+        
+        fallback = byCode[AccountType.REGULAR];
+        if (fallback == null) {
+            throw new IllegalArgumentException("Catalog must define the Regular product");
+        }
+        for (ProductPolicy policy : policies) {
+            for (String target : policy.getUpgradeTargets()) {
+                if (!byName.containsKey(target)) {
+                    throw new IllegalArgumentException("Unknown upgrade target: " + target);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the catalog of built-in products
+     */
+    public static ProductCatalog defaults() {
+        return DEFAULTS;
+    }
+    
+    /**
+     * Loads the built-in products plus the products defined in a properties file
+     */
+    public static ProductCatalog load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+    
+    /**
+     * Builds a catalog from the built-in products plus product.NAME.FIELD properties
+     */
+    public static ProductCatalog fromProperties(Properties properties) {
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) {
+                int dot = key.lastIndexOf('.');
+                if (dot <= PREFIX.length()) {
+                    throw new IllegalArgumentException("Malformed product key: " + key);
+                }
+                names.add(key.substring(PREFIX.length(), dot));
+            }
+        }
+        
+        Map<String, ProductPolicy> policies = new HashMap<>(DEFAULTS.byName);
+        for (String name : names) {
+            policies.put(name, parse(name, properties, DEFAULTS.byName.get(name)));
+        }
+        return new ProductCatalog(policies.values().toArray(new ProductPolicy[0]));
+    }
+    
+    /**
+     * Resolves a type name to its policy, using the Regular rules for unknown names
+     */
+    public ProductPolicy resolve(String name) {
+        ProductPolicy policy = byName.get(name);
+        return policy != null ? policy : fallback;
+    }
+    
+    /**
+     * Finds a product by name
+     * @return the policy, or null if the name is not in the catalog
+     */
+    public ProductPolicy find(String name) {
+        return byName.get(name);
+    }
+    
+    /**
+     * Gets the product with the given code
+     */
+    public ProductPolicy get(byte code) {
+        if (code < 0 || code >= byCode.length || byCode[code] == null) {
+            throw new IllegalArgumentException("Unknown account type code: " + code);
+        }
+        return byCode[code];
+    }
+    
+    /**
+     * Gets one more than the highest product code, the size of a code-indexed table
+     */
+    public int codeLimit() {
+        return byCode.length;
+    }
+    
+    /**
+     * Gets the products in code order
+     */
+    public ProductPolicy[] products() {
+        return Arrays.stream(byCode).filter(policy -> policy != null).toArray(ProductPolicy[]::new);
+    }
+    
+    private static ProductPolicy parse(String name, Properties properties, ProductPolicy base) {
+        String codeValue = value(properties, name, "code");
+        byte code;
+        if (codeValue != null) {
+            int parsed = Integer.parseInt(codeValue);
+            if (parsed < 0 || parsed > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Product code out of range: " + name);
+            }
+            code = (byte) parsed;
+        } else if (base != null) {
+            code = base.getCode();
+        } else {
+            throw new IllegalArgumentException("Product code is required for " + name);
+        }
+        if (base != null && code != base.getCode()) {
+            throw new IllegalArgumentException("Built-in product code cannot change: " + name);
+        }
+        // Balance checks add the overdraft to the balance, so it must be a real amount
+        if ("none".equalsIgnoreCase(value(properties, name, "overdraftLimit"))) {
+            throw new IllegalArgumentException("Overdraft limit cannot be unlimited: " + name);
+        }
+        
+        String targets = value(properties, name, "upgradeTargets");
+        String[] upgradeTargets;
+        if (targets != null) {
+            upgradeTargets = targets.trim().isEmpty() ? new String[0] : targets.trim().split("\\s*,\\s*");
+        } else {
+            upgradeTargets = base != null ? base.getUpgradeTargets().toArray(new String[0]) : new String[0];
+        }
+        
+        String interest = value(properties, name, "interestEligible");
+        String transactions = value(properties, name, "upgradeMinTransactions");
+        return new ProductPolicy(code, name,
+                amount(properties, name, "overdraftLimit", base != null ? base.getOverdraftLimitMinor() : 0),
+                amount(properties, name, "withdrawalCap",
+                       base != null ? base.getWithdrawalCapMinor() : ProductPolicy.NO_LIMIT),
+                amount(properties, name, "maintenanceCharge",
+                       base != null ? base.getMaintenanceChargeMinor() : 0),
+                amount(properties, name, "maintenanceWaiverBalance",
+                       base != null ? base.getMaintenanceWaiverBalanceMinor() : ProductPolicy.NO_LIMIT),
+                interest != null ? Boolean.parseBoolean(interest) : base != null && base.isInterestEligible(),
+                amount(properties, name, "upgradeMinBalance",
+                       base != null ? base.getUpgradeMinBalanceMinor() : 0),
+                transactions != null ? Integer.parseInt(transactions)
+                                     : base != null ? base.getUpgradeMinTransactions() : 0,
+                upgradeTargets);
+    }
+    
+    /**
+     * Reads an amount in rupees as paise; "none" means no limit
+     */
+    private static long amount(Properties properties, String name, String field, long defaultMinor) {
+        String value = value(properties, name, field);
+        if (value == null) {
+            return defaultMinor;
+        }
+        if (value.equalsIgnoreCase("none")) {
+            return ProductPolicy.NO_LIMIT;
+        }
+        try {
+            return new BigDecimal(value).multiply(BigDecimal.valueOf(Money.SCALE)).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount for " + PREFIX + name + "." + field, e);
+        }
+    }
+    
+    private static String value(Properties properties, String name, String field) {
+        String value = properties.getProperty(PREFIX + name + "." + field);
+        return value != null ? value.trim() : null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.banking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable rules of one account product. An account resolves its type
+ * name to a policy once, so the rule checks on every operation read a
+ * field instead of comparing type names. Amounts are in paise; the
+ * accounts convert to rupees through Money where their API needs it.
+ */
+public final class ProductPolicy {
+    
+    /** Limit value meaning the rule never applies */
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+    
+    private final byte code;
+    private final String name;
+    private final long overdraftLimitMinor;
+    private final long withdrawalCapMinor;
+    private final long maintenanceChargeMinor;
+    private final long maintenanceWaiverBalanceMinor;
+    private final boolean interestEligible;
+    private final long upgradeMinBalanceMinor;
+    private final int upgradeMinTransactions;
+    private final List<String> upgradeTargets;
+    
+    /**
+     * Creates a policy. Pass NO_LIMIT as the withdrawal cap or waiver balance
+     * for products without a cap or without a waiver.
+     */
+    public ProductPolicy(byte code, String name, long overdraftLimitMinor, long withdrawalCapMinor,
+                         long maintenanceChargeMinor, long maintenanceWaiverBalanceMinor,
+                         boolean interestEligible, long upgradeMinBalanceMinor,
+                         int upgradeMinTransactions, String... upgradeTargets) {
+        if (code < 0) {
+            throw new IllegalArgumentException("Product code cannot be negative");
+        }
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Product name is required");
+        }
+        if (overdraftLimitMinor < 0 || withdrawalCapMinor < 0 || maintenanceChargeMinor < 0
+                || upgradeMinBalanceMinor < 0 || upgradeMinTransactions < 0) {
+            throw new IllegalArgumentException("Product limits cannot be negative");
+        }
+        
+        this.code = code;
+        this.name = name;
+        this.overdraftLimitMinor = overdraftLimitMinor;
+        this.withdrawalCapMinor = withdrawalCapMinor;
+        this.maintenanceChargeMinor = maintenanceChargeMinor;
+        this.maintenanceWaiverBalanceMinor = maintenanceWaiverBalanceMinor;
+        this.interestEligible = interestEligible;
+        this.upgradeMinBalanceMinor = upgradeMinBalanceMinor;
+        this.upgradeMinTransactions = upgradeMinTransactions;
+        this.upgradeTargets = Collections.unmodifiableList(Arrays.asList(upgradeTargets.clone()));
+    }
+    
+    /**
+     * Gets the maintenance charge for a balance, in paise
+     */
+    public long maintenanceChargeFor(long balanceMinor) {
+        return balanceMinor < maintenanceWaiverBalanceMinor ? maintenanceChargeMinor : 0;
+    }
+    
+    /**
+     * Checks whether balance and activity qualify for an upgrade
+     */
+    public boolean qualifiesForUpgrade(long balanceMinor, int transactionCount) {
+        return !upgradeTargets.isEmpty() && balanceMinor >= upgradeMinBalanceMinor
+                && transactionCount >= upgradeMinTransactions;
+    }
+    
+    /**
+     * Checks if accounts of this product may be upgraded to the named product
+     */
+    public boolean canUpgradeTo(String productName) {
+        return upgradeTargets.contains(productName);
+    }
+    
+    public byte getCode() {
+        return code;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getOverdraftLimitMinor() {
+        return overdraftLimitMinor;
+    }
+    
+    public long getWithdrawalCapMinor() {
+        return withdrawalCapMinor;
+    }
+    
+    public long getMaintenanceChargeMinor() {
+        return maintenanceChargeMinor;
+    }
+    
+    public long getMaintenanceWaiverBalanceMinor() {
+        return maintenanceWaiverBalanceMinor;
+    }
+    
+    public boolean isInterestEligible() {
+        return interestEligible;
+    }
+    
+    public long getUpgradeMinBalanceMinor() {
+        return upgradeMinBalanceMinor;
+    }
+    
+    public int getUpgradeMinTransactions() {
+        return upgradeMinTransactions;
+    }
+    
+    public List<String> getUpgradeTargets() {
+        return upgradeTargets;
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking;
+
+/**
+ * Status codes returned by posting APIs that report outcomes as ints
+ * instead of booleans
+ */
+public final class ResultCode {
+    
+    /** The posting was applied */
+    public static final int POSTED = 0;
+    /** The posting was refused by the account rules; nothing changed */
+    public static final int REJECTED = 1;
+    /** The transaction ID was already posted; nothing changed */
+    public static final int DUPLICATE = 2;
+    /** The posting broke a rule the boolean API reports by throwing; nothing changed */
+    public static final int INVALID = 3;
+    /** The account is closed; nothing changed */
+    public static final int ACCOUNT_INACTIVE = 4;
+    /** The amount is above a per-transaction or daily limit; nothing changed */
+    public static final int LIMIT_EXCEEDED = 5;
+    /** A check passed; checks post nothing themselves */
+    public static final int ACCEPTED = 6;
+    
+    /** Bits per code when codes are packed into a long[]; wide enough for every code */
+    public static final int PACKED_BITS = 4;
+    
+    private ResultCode() {
+    }
+    
+    /**
+     * Gets a readable name for a code
+     */
+    public static String nameOf(int code) {
+        switch (code) {
+            case POSTED:
+                return "POSTED";
+            case REJECTED:
+                return "REJECTED";
+            case DUPLICATE:
+                return "DUPLICATE";
+            case INVALID:
+                return "INVALID";
+            case ACCOUNT_INACTIVE:
+                return "ACCOUNT_INACTIVE";
+            case LIMIT_EXCEEDED:
+                return "LIMIT_EXCEEDED";
+            case ACCEPTED:
+                return "ACCEPTED";
+            default:
+                throw new IllegalArgumentException("Unknown result code: " + code);
+        }
+    }
+    
+    /**
+     * Gets the code at an index of a packed result array, 16 codes per long
+     */
+    public static int unpack(long[] packed, int index) {
+        return (int) (packed[index >>> 4] >>> ((index & 15) * PACKED_BITS)) & 15;
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes periodic account snapshots in the background. The writer keeps
+ * its own snapshot image and advances it from the durable part of the
+ * posting journal, so checkpoints never pause or read the live accounts.
+ *
+ * Snapshot files are named after the journal sequence they cover; the
+ * newest few are kept and older ones deleted.
+ */
+public class SnapshotWriter implements AutoCloseable {
+    
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final int DEFAULT_RETAINED = 2;
+    
+    private final Path directory;
+    private final Path journalFile;
+    private final PostingJournal journal;
+    private final int retained;
+    private final ProductCatalog catalog;
+    private final ScheduledExecutorService executor;
+    private AccountSnapshot image; // only touched by the executor thread
+    
+    /**
+     * Creates a writer for the journal, storing snapshots in the given directory
+     */
+    public SnapshotWriter(Path directory, Path journalFile, PostingJournal journal) throws IOException {
+        this(directory, journalFile, journal, DEFAULT_RETAINED, ProductCatalog.defaults());
+    }
+    
+    /**
+     * Creates a writer that keeps the given number of most recent snapshot files,
+     * reading type codes with the given product catalog
+     */
+    public SnapshotWriter(Path directory, Path journalFile, PostingJournal journal,
+                          int retained, ProductCatalog catalog) throws IOException {
+        if (retained <= 0) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.journalFile = journalFile;
+        this.journal = journal;
+        this.retained = retained;
+        this.catalog = catalog;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Starts writing a snapshot every interval
+     */
+    public void schedule(long interval, TimeUnit unit) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Snapshot failed", e);
+            }
+        }, interval, interval, unit);
+    }
+    
+    /**
+     * Writes a snapshot covering every record durable in the journal now
+     * @return future completed with the snapshot file
+     */
+    public CompletableFuture<Path> checkpoint() {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(writeSnapshot());
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Stops scheduled snapshots; a snapshot already in progress is allowed to finish
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Finds the snapshot file covering the most journal records
+     * @return the file, or null if the directory holds no snapshot
+     */
+    public static Path findLatest(Path directory) throws IOException {
+        List<Path> files = listSnapshots(directory);
+        return files.isEmpty() ? null : files.get(files.size() - 1);
+    }
+    
+    private Path writeSnapshot() throws IOException {
+        if (image == null) {
+            Path latest = findLatest(directory);
+            image = latest == null ? new AccountSnapshot(catalog) : AccountSnapshot.load(latest, catalog);
+        }
+        
+        image.catchUp(journalFile, journal.getDurableSequence());
+        Path file = directory.resolve(fileName(image.getJournalSequence()));
+        if (!Files.exists(file)) {
+            image.write(file);
+        }
+        
+        List<Path> files = listSnapshots(directory);
+        for (int i = 0; i < files.size() - retained; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+        return file;
+    }
+    
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        // Zero-padded sequence numbers sort in journal order
+        Collections.sort(files);
+        return files;
+    }
+    
+    private static String fileName(long journalSequence) {
+        return String.format("%s%020d%s", PREFIX, journalSequence, SUFFIX);
+    }
+}
@@ -0,0 +1,144 @@
+package com.banking;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-size history of an account's most recent postings, for
+ * mini-statements and dispute lookups. Entries live in parallel primitive
+ * arrays used as a ring, so recording a posting is O(1) and allocates
+ * nothing; once full, each new posting overwrites the oldest one.
+ *
+ * Timestamps never go backwards within a history (a clock step back is
+ * recorded as the previous timestamp), which lets time-range queries
+ * binary search the ring.
+ */
+public class TransactionHistory {
+    
+    private final long[] timestamps;
+    private final long[] amounts;
+    private final long[] balancesAfter;
+    private final long[] counterparties;
+    private final byte[] types;
+    private final LongSupplier clock;
+    private long recorded;
+    
+    /**
+     * Creates a history of the given number of postings, stamped in epoch milliseconds
+     */
+    public TransactionHistory(int capacity) {
+        this(capacity, System::currentTimeMillis);
+    }
+    
+    public TransactionHistory(int capacity, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        timestamps = new long[capacity];
+        amounts = new long[capacity];
+        balancesAfter = new long[capacity];
+        counterparties = new long[capacity];
+        types = new byte[capacity];
+        this.clock = clock;
+    }
+    
+    /**
+     * Records a posting, overwriting the oldest entry when the history is full
+     */
+    public synchronized void record(byte type, long amountMinor, long balanceAfterMinor, long counterparty) {
+        int position = (int) (recorded % timestamps.length);
+        long now = clock.getAsLong();
+        if (recorded > 0) {
+            now = Math.max(now, timestamps[(int) ((recorded - 1) % timestamps.length)]);
+        }
+        timestamps[position] = now;
+        amounts[position] = amountMinor;
+        balancesAfter[position] = balanceAfterMinor;
+        counterparties[position] = counterparty;
+        types[position] = type;
+        recorded++;
+    }
+    
+    /**
+     * Visits the most recent postings, newest first. The history is locked
+     * while visiting, so visitors should only copy what they need.
+     * @return number of postings visited
+     */
+    public synchronized int last(int count, EntryVisitor visitor) {
+        int visited = Math.min(count, size());
+        for (int i = 1; i <= visited; i++) {
+            visit((int) ((recorded - i) % timestamps.length), visitor);
+        }
+        return visited;
+    }
+    
+    /**
+     * Visits the postings with timestamps in [fromMillis, toMillis), oldest first
+     * @return number of postings visited
+     */
+    public synchronized int between(long fromMillis, long toMillis, EntryVisitor visitor) {
+        int size = size();
+        long oldest = recorded - size;
+        int first = firstAtOrAfter(oldest, size, fromMillis);
+        int visited = 0;
+        for (int i = first; i < size; i++) {
+            int position = (int) ((oldest + i) % timestamps.length);
+            if (timestamps[position] >= toMillis) {
+                break;
+            }
+            visit(position, visitor);
+            visited++;
+        }
+        return visited;
+    }
+    
+    /**
+     * Gets number of postings currently held
+     */
+    public synchronized int size() {
+        return (int) Math.min(recorded, timestamps.length);
+    }
+    
+    /**
+     * Gets number of postings this history can hold
+     */
+    public int capacity() {
+        return timestamps.length;
+    }
+    
+    /**
+     * Gets number of postings recorded since creation, including overwritten ones
+     */
+    public synchronized long getTotalRecorded() {
+        return recorded;
+    }
+    
+    /**
+     * Callback for history queries
+     */
+    public interface EntryVisitor {
+        void visit(long timestampMillis, byte type, long amountMinor, long balanceAfterMinor,
+                   long counterparty);
+    }
+    
+    /**
+     * Finds the offset from the oldest entry of the first entry stamped at or after a time
+     */
+    private int firstAtOrAfter(long oldest, int size, long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[(int) ((oldest + mid) % timestamps.length)] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void visit(int position, EntryVisitor visitor) {
+        visitor.visit(timestamps[position], types[position], amounts[position],
+                      balancesAfter[position], counterparties[position]);
+    }
+}
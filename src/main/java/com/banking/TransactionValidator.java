@@ -32,6 +32,13 @@ public class TransactionValidator {
      * Validates account number format
      */
     public boolean isValidAccountNumber(String accountNumber) {
+        return hasAccountNumberFormat(accountNumber);
+    }
+    
+    /**
+     * Checks that an account number is 10 to 16 digits, without needing a validator
+     */
+    static boolean hasAccountNumberFormat(String accountNumber) {
         if (accountNumber == null || accountNumber.isEmpty()) {
             return false;
         }
@@ -84,12 +91,25 @@ public class TransactionValidator {
      * Checks if daily transaction limit is exceeded
      */
     public boolean isDailyLimitExceeded(double currentDayTotal, double newAmount) {
-        if (currentDayTotal < 0 || newAmount < 0) {
+        int code = checkDailyLimit(currentDayTotal, newAmount);
+        if (code == ResultCode.INVALID) {
             throw new IllegalArgumentException("Amounts cannot be negative");
         }
+        return code == ResultCode.LIMIT_EXCEEDED;
+    }
+    
+    /**
+     * Checks the daily transaction limit without throwing
+     * @return ResultCode.ACCEPTED if the new amount fits, LIMIT_EXCEEDED if it
+     *         does not, INVALID if either amount is negative
+     */
+    public int checkDailyLimit(double currentDayTotal, double newAmount) {
+        if (currentDayTotal < 0 || newAmount < 0) {
+            return ResultCode.INVALID;
+        }
         
         double totalAmount = currentDayTotal + newAmount;
-        return totalAmount > DAILY_LIMIT;
+        return totalAmount > DAILY_LIMIT ? ResultCode.LIMIT_EXCEEDED : ResultCode.ACCEPTED;
     }
     
     /**
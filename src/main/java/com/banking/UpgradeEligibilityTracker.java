@@ -0,0 +1,182 @@
+package com.banking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects when an account starts or stops meeting its product's upgrade
+ * criteria, as postings are applied, and publishes each crossing on a
+ * bounded queue. Upgrade offers can then be made as soon as an account
+ * qualifies instead of polling every account.
+ *
+ * Used as a PostingListener. Only currently eligible accounts are
+ * remembered. The queue is a fixed ring of primitive longs that posting
+ * threads append to without locking; when it is full new crossings are
+ * dropped and counted, and the consumer can resynchronise from
+ * isEligible or a rebuild.
+ */
+public class UpgradeEligibilityTracker implements PostingListener {
+    
+    private final ConcurrentHashMap<Long, Boolean> eligible = new ConcurrentHashMap<>();
+    
+    // Ring of events (account number << 1 | eligible bit); sequences[i] says
+    // whether slot i is free for the producer at that position or ready to read
+    private final long[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    /**
+     * Creates a tracker whose queue holds up to capacity crossings (rounded up to a power of two)
+     */
+    public UpgradeEligibilityTracker(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        events = new long[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+    
+    /**
+     * Records which accounts of a registry are eligible now, without publishing
+     * crossings. Run it while the registry is quiet: the scan does not re-check
+     * an account it has read.
+     */
+    public void rebuild(AccountRegistry registry) {
+        for (int shard = 0; shard < registry.shardCount(); shard++) {
+            registry.forEachInShard(shard, (accountNumber, account) -> {
+                if (account.canUpgrade()) {
+                    eligible.put(accountNumber, Boolean.TRUE);
+                } else {
+                    eligible.remove(accountNumber);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Touches the eligible set only when the posting changes eligibility. An
+     * account's postings are reported one at a time and in order, after the
+     * transaction count includes them, so the state before the posting follows
+     * from the balance after it, the amount and the type.
+     */
+    @Override
+    public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                          long balanceAfterMinor, long counterparty) {
+        ProductPolicy policy = account.getPolicy();
+        int count = account.getTransactionCount();
+        boolean now = policy.qualifiesForUpgrade(balanceAfterMinor, count);
+        if (type != PostingType.OPEN && type != PostingType.UPGRADE) {
+            // An upgrade changes the product, so the state before it cannot be derived
+            long balanceBeforeMinor = balanceAfterMinor - PostingType.signedAmount(type, amountMinor);
+            int countBefore = PostingType.isCounted(type) ? count - 1 : count;
+            if (now == policy.qualifiesForUpgrade(balanceBeforeMinor, countBefore)) {
+                return;
+            }
+        }
+        
+        long accountNumber = account.getAccountNumber();
+        boolean was = now ? eligible.put(accountNumber, Boolean.TRUE) != null
+                          : eligible.remove(accountNumber) != null;
+        if (was != now) {
+            publish(accountNumber, now);
+        }
+    }
+    
+    /**
+     * Hands queued crossings to the visitor, oldest first
+     * @return number of crossings delivered
+     */
+    public int drain(CrossingVisitor visitor) {
+        return drain(Integer.MAX_VALUE, visitor);
+    }
+    
+    /**
+     * Hands up to max queued crossings to the visitor, oldest first
+     * @return number of crossings delivered
+     */
+    public synchronized int drain(int max, CrossingVisitor visitor) {
+        int delivered = 0;
+        while (delivered < max) {
+            int position = (int) head & mask;
+            if (sequences.get(position) != head + 1) {
+                break;
+            }
+            long event = events[position];
+            sequences.lazySet(position, head + events.length);
+            head++;
+            delivered++;
+            visitor.onCrossing(event >>> 1, (event & 1) != 0);
+        }
+        return delivered;
+    }
+    
+    /**
+     * Checks whether an account met its upgrade criteria after its last posting
+     */
+    public boolean isEligible(long accountNumber) {
+        return eligible.containsKey(accountNumber);
+    }
+    
+    /**
+     * Gets number of accounts currently eligible
+     */
+    public int getEligibleCount() {
+        return eligible.size();
+    }
+    
+    /**
+     * Gets number of crossings queued since creation
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+    
+    /**
+     * Gets number of crossings lost because the queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    /**
+     * Receives eligibility crossings
+     */
+    public interface CrossingVisitor {
+        void onCrossing(long accountNumber, boolean eligible);
+    }
+    
+    private void publish(long accountNumber, boolean nowEligible) {
+        long event = accountNumber << 1 | (nowEligible ? 1 : 0);
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    published.increment();
+                    return;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+}
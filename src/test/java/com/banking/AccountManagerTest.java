@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+
 /**
  * Test class for AccountManager
  */
@@ -126,6 +128,17 @@ public class AccountManagerTest {
         assertFalse(result);
     }
     
+    @Test
+    public void testTransferAboveDepositLimitDoesNotDebit() {
+        AccountManager richAccount = new AccountManager("Premium", 2000000);
+        AccountManager targetAccount = new AccountManager("Savings", 5000);
+        assertThrows(IllegalArgumentException.class, () -> {
+            richAccount.transfer(targetAccount, 1500000);
+        });
+        assertEquals(2000000, richAccount.getBalance(), 0.01);
+        assertEquals(5000, targetAccount.getBalance(), 0.01);
+    }
+    
     @Test
     public void testCalculateMonthlyInterest() {
         double interest = savingsAccount.calculateMonthlyInterest(6);
@@ -296,4 +309,112 @@ public class AccountManagerTest {
         AccountManager regularAccount = new AccountManager("Regular", 5000);
         assertEquals(10000, regularAccount.getOverdraftLimit(), 0.01);
     }
+    
+    @Test
+    public void testApplyBatchMatchesSingleOperations() {
+        Random random = new Random(17);
+        for (String type : new String[] {"Regular", "Savings", "Premium"}) {
+            AccountManager single = new AccountManager(type, 20000);
+            AccountManager batched = new AccountManager(type, 20000);
+            TransactionHistory singleHistory = new TransactionHistory(512);
+            TransactionHistory batchHistory = new TransactionHistory(512);
+            single.setTransactionHistory(singleHistory);
+            batched.setTransactionHistory(batchHistory);
+            
+            int count = 200;
+            long[] amounts = new long[count];
+            byte[] ops = new byte[count];
+            for (int i = 0; i < count; i++) {
+                amounts[i] = random.nextInt(10) == 0 ? -random.nextInt(100) : random.nextInt(120000000);
+                ops[i] = random.nextBoolean() ? PostingType.DEPOSIT : PostingType.WITHDRAWAL;
+            }
+            
+            long[] results = batched.applyBatch(amounts, ops);
+            for (int i = 0; i < count; i++) {
+                double rupees = Money.toRupees(amounts[i]);
+                int expected = ops[i] == PostingType.DEPOSIT ? single.tryDeposit(rupees) : single.tryWithdraw(rupees);
+                assertEquals(expected, ResultCode.unpack(results, i), type + " op " + i);
+            }
+            assertEquals(single.getBalanceMinor(), batched.getBalanceMinor());
+            assertEquals(single.getTransactionCount(), batched.getTransactionCount());
+            assertEquals(singleHistory.getTotalRecorded(), batchHistory.getTotalRecorded());
+        }
+    }
+    
+    @Test
+    public void testApplyBatchOnClosedAccountAndBadOpCodes() {
+        AccountManager account = new AccountManager("Regular", 100);
+        long[] results = account.applyBatch(new long[] {100, 100}, new byte[] {PostingType.DEPOSIT, PostingType.INTEREST});
+        assertEquals(ResultCode.POSTED, ResultCode.unpack(results, 0));
+        assertEquals(ResultCode.INVALID, ResultCode.unpack(results, 1));
+        
+        account.closeAccount();
+        results = account.applyBatch(new long[40], new byte[40]);
+        assertEquals(3, results.length);
+        for (int i = 0; i < 40; i++) {
+            assertEquals(ResultCode.ACCOUNT_INACTIVE, ResultCode.unpack(results, i));
+        }
+        assertEquals(10100, account.getBalanceMinor());
+        assertThrows(IllegalArgumentException.class, () -> account.applyBatch(new long[2], new byte[1]));
+    }
+    
+    @Test
+    public void testTryDepositReportsEveryOutcome() {
+        AccountManager account = new AccountManager("Regular", 1000);
+        assertEquals(ResultCode.POSTED, account.tryDeposit(500));
+        assertEquals(ResultCode.REJECTED, account.tryDeposit(0));
+        assertEquals(ResultCode.LIMIT_EXCEEDED, account.tryDeposit(1000001));
+        assertEquals(ResultCode.INVALID, account.tryDeposit(Double.NaN));
+        assertEquals(1500.0, account.getBalance(), 0.001);
+        assertEquals(1, account.getTransactionCount());
+        
+        account.closeAccount();
+        assertEquals(ResultCode.ACCOUNT_INACTIVE, account.tryDeposit(500));
+    }
+    
+    @Test
+    public void testTryWithdrawReportsEveryOutcome() {
+        AccountManager account = new AccountManager("Savings", 100000);
+        assertEquals(ResultCode.POSTED, account.tryWithdraw(1000));
+        assertEquals(ResultCode.REJECTED, account.tryWithdraw(-5));
+        assertEquals(ResultCode.REJECTED, account.tryWithdraw(200000));
+        assertEquals(ResultCode.LIMIT_EXCEEDED, account.tryWithdraw(60000));
+        assertEquals(ResultCode.REJECTED, account.tryWithdraw(Double.POSITIVE_INFINITY));
+        assertEquals(ResultCode.REJECTED, account.tryWithdraw(1e20));
+        assertEquals(ResultCode.INVALID, account.tryWithdraw(Double.NaN));
+        assertFalse(account.withdraw(1e20));
+        assertFalse(account.withdraw(Double.POSITIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> account.withdraw(Double.NaN));
+        assertEquals(99000.0, account.getBalance(), 0.001);
+        
+        account.closeAccount();
+        assertEquals(ResultCode.ACCOUNT_INACTIVE, account.tryWithdraw(10));
+    }
+    
+    @Test
+    public void testTryTransferReportsEveryOutcome() {
+        AccountManager source = new AccountManager("Savings", 100000);
+        AccountManager target = new AccountManager("Regular", 0);
+        assertEquals(ResultCode.POSTED, source.tryTransfer(target, 2000));
+        assertEquals(ResultCode.LIMIT_EXCEEDED, source.tryTransfer(target, 60000));
+        assertEquals(ResultCode.LIMIT_EXCEEDED, source.tryTransfer(target, 2000000));
+        assertEquals(ResultCode.REJECTED, source.tryTransfer(target, 0));
+        assertEquals(98000.0, source.getBalance(), 0.001);
+        assertEquals(2000.0, target.getBalance(), 0.001);
+        
+        target.closeAccount();
+        assertEquals(ResultCode.ACCOUNT_INACTIVE, source.tryTransfer(target, 100));
+    }
+    
+    @Test
+    public void testBooleanApiStillThrows() {
+        AccountManager account = new AccountManager("Savings", 100000);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> account.deposit(2000000));
+        assertEquals("Single deposit cannot exceed 10 lakhs", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> account.withdraw(60000));
+        assertEquals("Withdrawal limit exceeded for savings account", e.getMessage());
+        assertThrows(ArithmeticException.class, () -> account.deposit(Double.NaN));
+        account.closeAccount();
+        assertThrows(IllegalStateException.class, () -> account.withdraw(10));
+    }
 }
@@ -0,0 +1,169 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Test class for AccountRecovery and SnapshotWriter
+ */
+public class AccountRecoveryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private static void post(AccountRegistry registry, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ConcurrentAccountManager account =
+                    registry.open(2000000000L + i, i % 3 == 0 ? "Savings" : "Regular", 1000 + i);
+            account.deposit(50 + i);
+            account.withdraw(20);
+            if (i > 0) {
+                account.transfer(registry.get(2000000000L + i - 1), 5);
+            }
+        }
+    }
+    
+    private static void assertSameAccounts(AccountRegistry expected, AccountRegistry actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int shard = 0; shard < expected.shardCount(); shard++) {
+            expected.forEachInShard(shard, (accountNumber, account) -> {
+                ConcurrentAccountManager copy = actual.get(accountNumber);
+                assertNotNull(copy);
+                assertEquals(account.getBalanceMinor(), copy.getBalanceMinor());
+                assertEquals(account.getAccountType(), copy.getAccountType());
+                assertEquals(account.getOverdraftLimit(), copy.getOverdraftLimit(), 0.001);
+                assertEquals(account.getTransactionCount(), copy.getTransactionCount());
+                assertEquals(account.isActive(), copy.isActive());
+            });
+        }
+    }
+    
+    @Test
+    public void testRecoverFromSnapshotAndJournalTail() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        Path snapshots = tempDir.resolve("snapshots");
+        AccountRegistry live = new AccountRegistry(8, 16);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64);
+             SnapshotWriter writer = new SnapshotWriter(snapshots, journalFile, journal)) {
+            live.setPostingListener(journal);
+            post(live, 0, 100);
+            Path first = writer.checkpoint().get();
+            assertEquals(journal.getDurableSequence(), AccountSnapshot.readHeader(first)[0]);
+            
+            post(live, 100, 150);
+            live.get(2000000003L).closeAccount();
+        }
+        
+        AccountRegistry recovered = new AccountRegistry(8, 16);
+        long end = AccountRecovery.recover(snapshots, journalFile, recovered, 4);
+        assertEquals(PostingJournal.read(journalFile, 0, (s, t, a, c, m, b) -> { }), end);
+        assertSameAccounts(live, recovered);
+        assertFalse(recovered.get(2000000003L).isActive());
+    }
+    
+    @Test
+    public void testCheckpointAfterRecoveryAndReattachedJournal() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        Path snapshots = tempDir.resolve("snapshots");
+        AccountRegistry live = new AccountRegistry(4, 16);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64);
+             SnapshotWriter writer = new SnapshotWriter(snapshots, journalFile, journal)) {
+            live.setPostingListener(journal);
+            post(live, 0, 20);
+            writer.checkpoint().get();
+        }
+        
+        AccountRegistry recovered = new AccountRegistry(4, 16);
+        AccountRecovery.recover(snapshots, journalFile, recovered, 2);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64);
+             SnapshotWriter writer = new SnapshotWriter(snapshots, journalFile, journal)) {
+            // Re-announces every recovered account as OPEN
+            recovered.setPostingListener(journal);
+            post(recovered, 20, 30);
+            writer.checkpoint().get();
+        }
+        
+        AccountRegistry again = new AccountRegistry(4, 16);
+        AccountRecovery.recover(snapshots, journalFile, again, 2);
+        assertSameAccounts(recovered, again);
+    }
+    
+    @Test
+    public void testRecoverWithoutSnapshot() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        AccountRegistry live = new AccountRegistry(4, 16);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64)) {
+            live.setPostingListener(journal);
+            post(live, 0, 40);
+        }
+        
+        AccountRegistry recovered = new AccountRegistry(4, 16);
+        AccountRecovery.recover(tempDir.resolve("none"), journalFile, recovered, 3);
+        assertSameAccounts(live, recovered);
+    }
+    
+    @Test
+    public void testFailingWorkerStopsReplay() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.ASYNC, 1024)) {
+            // Enough records for an unknown account to fill the worker's queue
+            for (int i = 0; i < 40000; i++) {
+                journal.append(PostingType.DEPOSIT, 4000000000L, 0, 100, 100 * (i + 1));
+            }
+        }
+        
+        AccountRegistry recovered = new AccountRegistry(2, 16);
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> AccountRecovery.recover(tempDir.resolve("none"), journalFile, recovered, 1));
+        assertTrue(error.getMessage().contains("4000000000"));
+    }
+    
+    @Test
+    public void testUpgradeSurvivesRecovery() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        Path snapshots = tempDir.resolve("snapshots");
+        AccountRegistry live = new AccountRegistry(2, 16);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64);
+             SnapshotWriter writer = new SnapshotWriter(snapshots, journalFile, journal)) {
+            live.setPostingListener(journal);
+            ConcurrentAccountManager account = live.open(3000000000L, "Savings", 200000);
+            for (int i = 0; i < 20; i++) {
+                account.deposit(10);
+            }
+            writer.checkpoint().get();
+            assertTrue(account.upgradeAccount("Premium"));
+        }
+        
+        AccountRegistry recovered = new AccountRegistry(2, 16);
+        AccountRecovery.recover(snapshots, journalFile, recovered, 2);
+        assertEquals("Premium", recovered.get(3000000000L).getAccountType());
+        assertEquals(50000, recovered.get(3000000000L).getOverdraftLimit(), 0.001);
+    }
+    
+    @Test
+    public void testWriterKeepsNewestSnapshots() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        Path snapshots = tempDir.resolve("snapshots");
+        AccountRegistry live = new AccountRegistry(2, 16);
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 64);
+             SnapshotWriter writer = new SnapshotWriter(snapshots, journalFile, journal, 2,
+                                                      ProductCatalog.defaults())) {
+            live.setPostingListener(journal);
+            Path latest = null;
+            for (int round = 0; round < 4; round++) {
+                post(live, round * 10, round * 10 + 10);
+                latest = writer.checkpoint().get();
+            }
+            assertEquals(latest, SnapshotWriter.findLatest(snapshots));
+            assertEquals(journal.getDurableSequence(), AccountSnapshot.readHeader(latest)[0]);
+            try (Stream<Path> files = Files.list(snapshots)) {
+                assertEquals(2, files.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for AccountRegistry
+ */
+public class AccountRegistryTest {
+    
+    private AccountRegistry registry;
+    
+    @BeforeEach
+    public void setUp() {
+        registry = new AccountRegistry(4, 4);
+    }
+    
+    @Test
+    public void testOpenAndGet() {
+        ConcurrentAccountManager account = registry.open(1234567890L, "Savings", 10000);
+        assertNotNull(account);
+        assertSame(account, registry.get(1234567890L));
+        assertEquals(1234567890L, account.getAccountNumber());
+        assertNull(registry.get(1234567891L));
+        assertEquals(1, registry.size());
+    }
+    
+    @Test
+    public void testDuplicateNumberRejected() {
+        registry.open(1234567890L, "Savings", 10000);
+        assertNull(registry.open(1234567890L, "Premium", 5000));
+        assertEquals("Savings", registry.get(1234567890L).getAccountType());
+    }
+    
+    @Test
+    public void testParseAccountNumber() {
+        assertEquals(1234567890123L, AccountRegistry.parseAccountNumber("1234567890123"));
+        assertThrows(IllegalArgumentException.class, () -> AccountRegistry.parseAccountNumber("12345"));
+        assertThrows(IllegalArgumentException.class, () -> AccountRegistry.parseAccountNumber("12345abcde"));
+        assertThrows(IllegalArgumentException.class, () -> AccountRegistry.parseAccountNumber("0123456789"));
+    }
+    
+    @Test
+    public void testAccountNumberRangeEnforced() {
+        assertThrows(IllegalArgumentException.class, () -> registry.open(0L, "Regular", 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.open(999999999L, "Regular", 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.open(10000000000000000L, "Regular", 0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> registry.register(new ConcurrentAccountManager("Regular", 0)));
+        assertNotNull(registry.open(AccountRegistry.MIN_ACCOUNT_NUMBER, "Regular", 0));
+        assertNotNull(registry.open(AccountRegistry.MAX_ACCOUNT_NUMBER, "Regular", 0));
+        assertEquals(2, registry.size());
+    }
+    
+    @Test
+    public void testClose() {
+        registry.open(1234567890L, "Savings", 10000);
+        assertTrue(registry.close(1234567890L));
+        assertFalse(registry.get(1234567890L).isActive());
+        assertFalse(registry.close(9999999999L));
+    }
+    
+    @Test
+    public void testGrowthAndShardIteration() {
+        for (long n = 0; n < 5000; n++) {
+            assertNotNull(registry.open(1000000000L + n, "Regular", 100));
+        }
+        assertEquals(5000, registry.size());
+        
+        AtomicInteger visited = new AtomicInteger();
+        for (int shard = 0; shard < registry.shardCount(); shard++) {
+            final int expectedShard = shard;
+            registry.forEachInShard(shard, (number, account) -> {
+                assertEquals(expectedShard, registry.shardOf(number));
+                assertEquals(number, account.getAccountNumber());
+                visited.incrementAndGet();
+            });
+        }
+        assertEquals(5000, visited.get());
+    }
+    
+    @Test
+    public void testSingleShard() {
+        AccountRegistry single = new AccountRegistry(1, 2);
+        single.open(1234567890L, "Savings", 1);
+        single.open(1234567891L, "Savings", 1);
+        single.open(1234567892L, "Savings", 1);
+        assertEquals(3, single.size());
+        assertNotNull(single.get(1234567892L));
+    }
+    
+    @Test
+    public void testConcurrentInsertAndLookup() throws Exception {
+        List<Thread> workers = new ArrayList<>();
+        AtomicInteger missing = new AtomicInteger();
+        for (int t = 0; t < 4; t++) {
+            final long base = 1000000000L + t * 100000L;
+            Thread worker = new Thread(() -> {
+                for (long n = 0; n < 10000; n++) {
+                    registry.open(base + n, "Regular", 0);
+                    if (registry.get(base + n) == null) {
+                        missing.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, missing.get());
+        assertEquals(40000, registry.size());
+    }
+    
+    @Test
+    public void testOpenReportedForRegisteredAndExistingAccounts() {
+        List<String> events = new ArrayList<>();
+        PostingListener recorder = (account, type, amount, balance, counterparty) ->
+                events.add(type + ":" + account.getAccountNumber() + ":" + balance);
+        registry.open(1111111111L, "Savings", 100);
+        registry.setPostingListener(recorder);
+        assertEquals(List.of(PostingType.OPEN + ":1111111111:10000"), events);
+        
+        assertTrue(registry.register(new ConcurrentAccountManager(2222222222L, "Regular", 50)));
+        assertFalse(registry.register(new ConcurrentAccountManager(2222222222L, "Regular", 50)));
+        assertEquals(PostingType.OPEN + ":2222222222:5000", events.get(1));
+        assertEquals(2, events.size());
+    }
+}
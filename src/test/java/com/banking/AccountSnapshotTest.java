@@ -0,0 +1,86 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test class for AccountSnapshot
+ */
+public class AccountSnapshotTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testWriteAndLoad() throws Exception {
+        ColumnarAccountStore store = new ColumnarAccountStore();
+        store.add(1000000000L, "Savings", 1500.25);
+        store.add(1000000001L, AccountType.PREMIUM, -250000L, 5000000L, 42, false);
+        Path file = tempDir.resolve("accounts.snap");
+        new AccountSnapshot(store, 17).write(file);
+        
+        assertEquals(AccountSnapshot.HEADER_SIZE + 2 * AccountSnapshot.RECORD_SIZE, Files.size(file));
+        assertArrayEquals(new long[] {17, 2}, AccountSnapshot.readHeader(file));
+        
+        AccountSnapshot loaded = AccountSnapshot.load(file);
+        ColumnarAccountStore accounts = loaded.getAccounts();
+        assertEquals(17, loaded.getJournalSequence());
+        assertEquals(2, accounts.size());
+        assertEquals(150025L, accounts.getBalanceMinor(0));
+        assertEquals("Savings", accounts.getAccountType(0));
+        assertTrue(accounts.isActive(0));
+        assertEquals(-250000L, accounts.getBalanceMinor(1));
+        assertEquals(5000000L, accounts.getOverdraftLimitMinor(1));
+        assertEquals(42, accounts.getTransactionCount(1));
+        assertFalse(accounts.isActive(1));
+    }
+    
+    @Test
+    public void testCatchUpAppliesJournalRange() throws Exception {
+        Path journalFile = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(journalFile, PostingJournal.Durability.PER_BATCH, 8)) {
+            journal.append(PostingType.OPEN, 1000000000L, AccountType.SAVINGS, 100000, 100000);
+            journal.append(PostingType.DEPOSIT, 1000000000L, 0, 5000, 105000);
+            journal.append(PostingType.WITHDRAWAL, 1000000000L, 0, 2000, 103000);
+            journal.append(PostingType.CLOSE, 1000000000L, 0, 0, 103000);
+        }
+        
+        AccountSnapshot snapshot = new AccountSnapshot();
+        assertEquals(3, snapshot.catchUp(journalFile, 3));
+        assertEquals(3, snapshot.getJournalSequence());
+        assertEquals(103000L, snapshot.getAccounts().getBalanceMinor(0));
+        assertEquals(2, snapshot.getAccounts().getTransactionCount(0));
+        assertTrue(snapshot.getAccounts().isActive(0));
+        
+        assertEquals(1, snapshot.catchUp(journalFile, Long.MAX_VALUE));
+        assertFalse(snapshot.getAccounts().isActive(0));
+        assertEquals(0, snapshot.catchUp(journalFile, Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void testVisitRange() throws Exception {
+        ColumnarAccountStore store = new ColumnarAccountStore();
+        for (int i = 0; i < 10; i++) {
+            store.add(1000000000L + i, "Regular", i);
+        }
+        Path file = tempDir.resolve("accounts.snap");
+        new AccountSnapshot(store, 0).write(file);
+        
+        long[] sum = new long[1];
+        AccountSnapshot.visit(file, 4, 7, (account, type, balance, overdraft, count, active) -> sum[0] += balance);
+        assertEquals(400 + 500 + 600, sum[0]);
+    }
+    
+    @Test
+    public void testRejectsCorruptFile() throws Exception {
+        Path file = tempDir.resolve("bad.snap");
+        Files.write(file, new byte[AccountSnapshot.HEADER_SIZE]);
+        assertThrows(IOException.class, () -> AccountSnapshot.load(file));
+        assertThrows(IllegalArgumentException.class, () -> new AccountSnapshot(new ColumnarAccountStore(), -1));
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AmortizationSchedule
+ */
+public class AmortizationScheduleTest {
+    
+    private final LoanCalculator loanCalculator = new LoanCalculator();
+    
+    @Test
+    public void testRowsChainAndRepayPrincipal() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(5000000, 8.5, 360);
+        double[] totals = new double[2];
+        double[] previousClosing = {5000000};
+        schedule.forEach((month, opening, interest, principal, closing) -> {
+            assertEquals(previousClosing[0], opening, 0.0, "month " + month);
+            assertEquals(opening - principal, closing, 0.005);
+            if (month < 360) {
+                assertEquals(schedule.getEmi(), interest + principal, 0.011, "month " + month);
+            }
+            totals[0] += principal;
+            totals[1] += interest;
+            previousClosing[0] = closing;
+        });
+        assertEquals(0.0, previousClosing[0], 0.0);
+        assertEquals(5000000, totals[0], 0.5);
+        assertEquals(schedule.getEmi() * 360 - 5000000, totals[1], 10.0);
+    }
+    
+    @Test
+    public void testFirstRowMatchesPerMonthHelpers() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(100000, 10, 12);
+        AmortizationSchedule.Cursor cursor = schedule.cursor();
+        assertTrue(cursor.next());
+        assertEquals(1, cursor.getMonth());
+        assertEquals(100000.0, cursor.getOpeningBalance(), 0.0);
+        double interest = loanCalculator.calculateInterestInEMI(100000, 10);
+        assertEquals(interest, cursor.getInterest(), 0.0);
+        assertEquals(loanCalculator.calculatePrincipalInEMI(schedule.getEmi(), interest), cursor.getPrincipal(), 0.01);
+    }
+    
+    @Test
+    public void testRandomAccessMatchesSequentialWalk() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(2500000, 9.1, 240);
+        AmortizationSchedule.Cursor walker = schedule.cursor();
+        AmortizationSchedule.Cursor jumper = schedule.cursor();
+        int rows = 0;
+        while (walker.next()) {
+            rows++;
+            jumper.at(walker.getMonth());
+            assertEquals(walker.getOpeningBalance(), jumper.getOpeningBalance(), 0.0);
+            assertEquals(walker.getInterest(), jumper.getInterest(), 0.0);
+            assertEquals(walker.getPrincipal(), jumper.getPrincipal(), 0.0);
+            assertEquals(walker.getClosingBalance(), jumper.getClosingBalance(), 0.0);
+        }
+        assertEquals(240, rows);
+        assertEquals(0.0, walker.getClosingBalance(), 0.0);
+    }
+    
+    @Test
+    public void testClosingBalanceMatchesRemainingPrincipal() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(750000, 11, 84);
+        AmortizationSchedule.Cursor cursor = schedule.cursor();
+        for (int month = 1; month <= 84; month += 7) {
+            assertEquals(loanCalculator.calculateRemainingPrincipal(750000, 11, 84, month),
+                         cursor.at(month).getClosingBalance(), 0.0);
+            assertEquals(cursor.getClosingBalance(), schedule.getBalanceAfter(month), 0.0);
+        }
+    }
+    
+    @Test
+    public void testPageOfRows() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(120000, 0, 12);
+        int[] months = new int[3];
+        int[] count = {0};
+        schedule.forEach(4, 6, (month, opening, interest, principal, closing) -> {
+            months[count[0]++] = month;
+            assertEquals(0.0, interest, 0.0);
+            assertEquals(10000.0, principal, 0.0);
+        });
+        assertArrayEquals(new int[] {4, 5, 6}, months);
+        assertEquals(90000.0, schedule.getBalanceAfter(3), 0.0);
+    }
+    
+    @Test
+    public void testInvalidMonths() {
+        AmortizationSchedule schedule = loanCalculator.createSchedule(100000, 10, 12);
+        assertThrows(IllegalArgumentException.class, () -> schedule.cursor().at(0));
+        assertThrows(IllegalArgumentException.class, () -> schedule.cursor().at(13));
+        assertThrows(IllegalArgumentException.class, () -> schedule.getBalanceAfter(-1));
+        assertThrows(IllegalArgumentException.class, () -> schedule.forEach(1, 13, (m, o, i, p, c) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new AmortizationSchedule(0, 10, 12));
+        AmortizationSchedule.Cursor cursor = schedule.cursor().at(12);
+        assertFalse(cursor.next());
+    }
+}
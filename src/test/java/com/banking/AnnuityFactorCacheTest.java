@@ -0,0 +1,112 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for AnnuityFactorCache
+ */
+public class AnnuityFactorCacheTest {
+    
+    @Test
+    public void testHitsReturnComputedFactor() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(16);
+        double first = cache.factor(8.5, 240);
+        double second = cache.factor(8.5, 240);
+        assertEquals(AnnuityFactorCache.compute(8.5, 240), first, 0.0);
+        assertEquals(first, second, 0.0);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio(), 0.0);
+    }
+    
+    @Test
+    public void testRatesOffBasisPointsAreNotCached() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(16);
+        cache.factor(8.333, 120);
+        cache.factor(8.333, 120);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        cache.factor(9.1, 120);
+        cache.factor(9.1, 120);
+        assertEquals(1, cache.getHits());
+    }
+    
+    @Test
+    public void testNewKeyEvictsSlot() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(1);
+        assertEquals(1, cache.capacity());
+        cache.factor(10, 12);
+        cache.factor(10, 24);
+        cache.factor(10, 12);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(0.0, new AnnuityFactorCache(4).getHitRatio(), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> new AnnuityFactorCache(0));
+    }
+    
+    @Test
+    public void testLoanCalculatorUsesCache() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(64);
+        LoanCalculator loanCalculator = new LoanCalculator(cache);
+        assertSame(cache, loanCalculator.getAnnuityFactorCache());
+        assertEquals(8791.59, loanCalculator.calculateEMI(100000, 10, 12), 0.0);
+        assertEquals(8791.59, loanCalculator.calculateEMI(100000, 10, 12), 0.0);
+        loanCalculator.calculateMaxLoanAmount(50000, 10, 12);
+        assertTrue(loanCalculator.shouldRefinance(10, 8, 500000, 60, 1000));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+    
+    @Test
+    public void testSchedulesAndRemainingPrincipalUseCache() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(64);
+        LoanCalculator loanCalculator = new LoanCalculator(cache);
+        assertEquals(8791.59, loanCalculator.createSchedule(100000, 10, 12).getEmi(), 0.0);
+        loanCalculator.calculateRemainingPrincipal(100000, 10, 12, 6);
+        double[] out = new double[2];
+        loanCalculator.calculateRemainingPrincipals(new double[] {100000, 100000}, new double[] {10, 10},
+                                                    new int[] {12, 12}, new int[] {3, 9}, out);
+        assertEquals(loanCalculator.calculateRemainingPrincipal(100000, 10, 12, 9), out[1], 0.0);
+        assertEquals(1, cache.getMisses());
+        assertEquals(4, cache.getHits());
+    }
+    
+    @Test
+    public void testEmiMatchesUncachedFormula() {
+        LoanCalculator loanCalculator = new LoanCalculator(new AnnuityFactorCache(8));
+        for (int bp = 1; bp <= 2400; bp += 37) {
+            double rate = bp / 100.0;
+            for (int tenure = 6; tenure <= 360; tenure += 59) {
+                double monthlyRate = rate / (12 * 100);
+                double power = Math.pow(1 + monthlyRate, tenure);
+                double expected = Math.round(750000 * monthlyRate * power / (power - 1) * 100.0) / 100.0;
+                assertEquals(expected, loanCalculator.calculateEMI(750000, rate, tenure), 0.01);
+            }
+        }
+    }
+    
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        AnnuityFactorCache cache = new AnnuityFactorCache(32);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    int tenure = 12 * (1 + i % 30);
+                    assertEquals(AnnuityFactorCache.compute(7.5, tenure), cache.factor(7.5, tenure), 0.0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getHitRatio() > 0);
+    }
+}
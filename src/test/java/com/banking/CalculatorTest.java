@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
+
 /**
  * Test class for Calculator
  */
@@ -60,4 +62,97 @@ public class CalculatorTest {
         assertEquals(5, calculator.max(5, 3));
         assertEquals(5, calculator.max(5, 5));
     }
+    
+    @Test
+    public void testArrayKernels() {
+        int[] ints = new int[5];
+        calculator.add(new int[] {1, 2, 3, 4, 5}, new int[] {5, 4, 3, 2, 1}, ints);
+        assertArrayEquals(new int[] {6, 6, 6, 6, 6}, ints);
+        calculator.subtract(ints, new int[] {1, 2, 3, 4, 5}, ints);
+        assertArrayEquals(new int[] {5, 4, 3, 2, 1}, ints);
+        calculator.multiply(ints, ints, ints);
+        assertArrayEquals(new int[] {25, 16, 9, 4, 1}, ints);
+        calculator.abs(new int[] {-3, 0, 3, -7, 1}, ints);
+        assertArrayEquals(new int[] {3, 0, 3, 7, 1}, ints);
+        
+        long[] longs = new long[3];
+        calculator.multiplyAdd(new long[] {2, 3, 4}, new long[] {10, 10, 10}, new long[] {1, 2, 3}, longs);
+        assertArrayEquals(new long[] {21, 32, 43}, longs);
+        calculator.abs(new long[] {-5L << 40, 7, 0}, longs);
+        assertArrayEquals(new long[] {5L << 40, 7, 0}, longs);
+        calculator.multiply(longs, new long[] {2, 3, 4}, longs);
+        assertArrayEquals(new long[] {10L << 40, 21, 0}, longs);
+        
+        double[] doubles = new double[2];
+        calculator.multiplyAdd(new double[] {0.5, 2}, new double[] {4, 3}, new double[] {1, -1}, doubles);
+        assertArrayEquals(new double[] {3, 5}, doubles, 0.0);
+        calculator.subtract(doubles, new double[] {0.5, 6}, doubles);
+        assertArrayEquals(new double[] {2.5, -1}, doubles, 0.0);
+        
+        assertThrows(IllegalArgumentException.class, () -> calculator.add(new int[2], new int[3], new int[2]));
+    }
+    
+    @Test
+    public void testArrayReductions() {
+        assertEquals(9, calculator.max(new int[] {3, 9, -2}));
+        assertEquals(-1L, calculator.max(new long[] {-5, -1, -9}));
+        assertEquals(2.5, calculator.max(new double[] {1, 2.5, -3}), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> calculator.max(new long[0]));
+        
+        assertEquals(2L * Integer.MAX_VALUE, calculator.sum(new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE}));
+        assertEquals(15, calculator.sum(new long[] {1, 2, 3, 4, 5}));
+        assertEquals(15.5, calculator.sum(new double[] {1, 2, 3, 4, 5, 0.5}), 1e-12);
+        assertEquals(0, calculator.sum(new long[0]));
+    }
+    
+    @Test
+    public void testExactKernelsReportOverflowIndices() {
+        int[] overflows = new int[4];
+        int[] ints = new int[4];
+        assertEquals(0, calculator.addExact(new int[] {1, 2, 3, 4}, new int[] {1, 1, 1, 1}, ints, overflows));
+        assertEquals(2, calculator.addExact(new int[] {Integer.MAX_VALUE, 1, Integer.MIN_VALUE, 4},
+                                            new int[] {1, 1, -1, 1}, ints, overflows));
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(overflows, 2));
+        assertEquals(2, ints[1]);
+        
+        long[] longs = new long[3];
+        assertEquals(1, calculator.addExact(new long[] {Long.MAX_VALUE, 1, 2}, new long[] {0, 1, Long.MAX_VALUE},
+                                            longs, overflows));
+        assertEquals(2, overflows[0]);
+        assertEquals(2, calculator.subtractExact(new long[] {Long.MIN_VALUE, 5, Long.MAX_VALUE},
+                                                 new long[] {1, 6, -1}, longs, overflows));
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(overflows, 2));
+        assertEquals(-1, longs[1]);
+        
+        assertEquals(1, calculator.multiplyExact(new int[] {46341, 46340, -2}, new int[] {46341, 46340, 3},
+                                                 ints = new int[3], overflows));
+        assertEquals(0, overflows[0]);
+        assertEquals(46340 * 46340, ints[1]);
+        assertEquals(2, calculator.subtractExact(new int[] {Integer.MIN_VALUE, 5, Integer.MAX_VALUE},
+                                                 new int[] {1, 6, -1}, ints, overflows));
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(overflows, 2));
+        assertEquals(-1, ints[1]);
+        
+        assertEquals(2, calculator.multiplyExact(new long[] {1L << 32, -(1L << 31), Long.MIN_VALUE},
+                                                 new long[] {1L << 31, 1L << 32, -1}, longs, overflows));
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(overflows, 2));
+        assertEquals(Long.MIN_VALUE, longs[1]);
+        assertEquals(0, calculator.multiplyExact(new long[] {-3, 0, 1L << 62}, new long[] {7, Long.MIN_VALUE, 1},
+                                                 longs, overflows));
+        
+        assertEquals(1, calculator.absExact(new int[] {-1, Integer.MIN_VALUE, 4}, ints, overflows));
+        assertEquals(1, overflows[0]);
+        assertArrayEquals(new int[] {1, Integer.MIN_VALUE, 4}, ints);
+        assertEquals(0, calculator.absExact(new long[] {-Long.MAX_VALUE, 2, 0}, longs, overflows));
+        assertEquals(Long.MAX_VALUE, longs[0]);
+        assertEquals(1, calculator.absExact(new long[] {3, 2, Long.MIN_VALUE}, longs, overflows));
+        assertEquals(2, overflows[0]);
+        
+        int[] oneSlot = new int[1];
+        assertEquals(3, calculator.addExact(new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE},
+                                            new int[] {1, 1, 1}, new int[3], oneSlot));
+        assertEquals(0, oneSlot[0]);
+        int[] alias = new int[3];
+        assertThrows(IllegalArgumentException.class, () -> calculator.addExact(alias, new int[3], alias, oneSlot));
+    }
 }
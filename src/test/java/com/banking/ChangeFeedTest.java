@@ -0,0 +1,167 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for ChangeFeed
+ */
+public class ChangeFeedTest {
+    
+    @Test
+    public void testAccountManagerMutationsAreCaptured() {
+        ChangeFeed feed = new ChangeFeed(64);
+        ChangeFeed.Subscriber subscriber = feed.subscribe(100);
+        AccountManager savings = new AccountManager("Savings", 100000);
+        AccountManager regular = new AccountManager("Regular", 0);
+        savings.setChangeFeed(feed, 11L);
+        regular.setChangeFeed(feed, 22L);
+        
+        for (int i = 0; i < 20; i++) {
+            savings.deposit(10);
+        }
+        savings.withdraw(100);
+        savings.transfer(regular, 500);
+        savings.applyInterest(6);
+        regular.deductMaintenanceCharge();
+        savings.upgradeAccount("Premium");
+        regular.closeAccount();
+        assertTrue(regular.closeAccount());
+        
+        ChangeFeed.Recorder recorder = new ChangeFeed.Recorder();
+        assertEquals(27, subscriber.poll(recorder));
+        List<long[]> events = recorder.getEvents();
+        assertArrayEquals(new long[] {0, 11, PostingType.DEPOSIT, 1000, 10001000, 0}, events.get(0));
+        assertEquals(PostingType.WITHDRAWAL, events.get(20)[2]);
+        assertEquals(PostingType.TRANSFER_OUT, events.get(21)[2]);
+        assertArrayEquals(new long[] {22, 22, PostingType.TRANSFER_IN, 50000, 50000, 0}, events.get(22));
+        assertEquals(PostingType.INTEREST, events.get(23)[2]);
+        assertEquals(savings.getBalanceMinor(), events.get(23)[4]);
+        assertArrayEquals(new long[] {24, 22, PostingType.MAINTENANCE_CHARGE, 30000, 20000, 0}, events.get(24));
+        assertEquals(PostingType.UPGRADE, events.get(25)[2]);
+        assertEquals(AccountType.codeOf("Premium"), events.get(25)[5]);
+        assertArrayEquals(new long[] {26, 22, PostingType.CLOSE, 0, 20000, 0}, events.get(26));
+    }
+    
+    @Test
+    public void testConcurrentAccountPostingsViaListener() {
+        ChangeFeed feed = new ChangeFeed(16);
+        AccountRegistry registry = new AccountRegistry(4, 4);
+        registry.setPostingListener(feed);
+        ChangeFeed.Subscriber subscriber = feed.subscribe(16);
+        
+        ConcurrentAccountManager a = registry.open(1000000001L, "Regular", 1000);
+        ConcurrentAccountManager b = registry.open(1000000002L, "Regular", 0);
+        a.transfer(b, 250);
+        
+        ChangeFeed.Recorder recorder = new ChangeFeed.Recorder();
+        assertEquals(4, subscriber.poll(recorder));
+        assertEquals(PostingType.OPEN, recorder.getEvents().get(0)[2]);
+        assertArrayEquals(new long[] {3, 1000000002L, PostingType.TRANSFER_IN, 25000, 25000, 1000000001L}, recorder.getEvents().get(3));
+    }
+    
+    @Test
+    public void testBatchesAndIndependentOffsets() {
+        ChangeFeed feed = new ChangeFeed(32);
+        ChangeFeed.Subscriber small = feed.subscribe(3);
+        ChangeFeed.Subscriber large = feed.subscribe(100);
+        for (int i = 0; i < 10; i++) {
+            feed.append(i, PostingType.DEPOSIT, i, i, 0);
+        }
+        
+        ChangeFeed.Recorder recorder = new ChangeFeed.Recorder();
+        assertEquals(3, small.poll(recorder));
+        assertEquals(3, small.getOffset());
+        assertEquals(7, small.getLag());
+        assertEquals(10, large.poll(new ChangeFeed.Recorder()));
+        assertEquals(0, large.getLag());
+        assertEquals(3, small.poll(recorder));
+        assertEquals(5, recorder.getEvents().get(5)[1]);
+        
+        ChangeFeed.Subscriber late = feed.subscribe(10);
+        assertEquals(10, late.getOffset());
+        assertEquals(0, late.poll(recorder));
+    }
+    
+    @Test
+    public void testLappedSubscriberSeesGap() {
+        ChangeFeed feed = new ChangeFeed(4);
+        ChangeFeed.Subscriber subscriber = feed.subscribe(2);
+        for (int i = 0; i < feed.capacity(); i++) {
+            assertEquals(i, feed.append(1, PostingType.DEPOSIT, i, i, 0));
+        }
+        ChangeFeed.Recorder recorder = new ChangeFeed.Recorder();
+        assertEquals(2, subscriber.poll(recorder));
+        
+        // The producer never waits; events 2 to 5 are overwritten before being read
+        for (int i = feed.capacity(); i < 10; i++) {
+            assertEquals(i, feed.append(1, PostingType.DEPOSIT, i, i, 0));
+        }
+        assertEquals(2, subscriber.poll(recorder));
+        assertEquals(4, subscriber.getLost());
+        assertEquals(6, recorder.getEvents().get(2)[0]);
+        assertEquals(6, recorder.getEvents().get(2)[3]);
+        assertEquals(2, subscriber.poll(recorder));
+        assertEquals(0, subscriber.getLag());
+        assertEquals(4, subscriber.getLost());
+    }
+    
+    @Test
+    public void testNoSubscribersOverwrites() {
+        ChangeFeed feed = new ChangeFeed(2);
+        for (int i = 0; i < 100; i++) {
+            feed.append(1, PostingType.DEPOSIT, i, i, 0);
+        }
+        assertEquals(100, feed.getSequence());
+    }
+    
+    @Test
+    public void testClosedSubscriberCannotPoll() {
+        ChangeFeed feed = new ChangeFeed(2);
+        ChangeFeed.Subscriber subscriber = feed.subscribe(1);
+        subscriber.close();
+        for (int i = 0; i < 10; i++) {
+            feed.append(1, PostingType.DEPOSIT, i, i, 0);
+        }
+        assertThrows(IllegalStateException.class, () -> subscriber.poll(new ChangeFeed.Recorder()));
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(0));
+    }
+    
+    @Test
+    public void testManyProducersOneSubscriber() throws Exception {
+        ChangeFeed feed = new ChangeFeed(64);
+        ChangeFeed.Subscriber subscriber = feed.subscribe(16);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long account = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    feed.append(account, PostingType.DEPOSIT, i, i, 0);
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        
+        // Producers never wait, so events the subscriber falls behind on are lost, leaving gaps
+        long[] lastAmount = {-1, -1, -1, -1};
+        long[] lastSequence = {-1};
+        long received = 0;
+        while (subscriber.getOffset() < 20000) {
+            received += subscriber.poll((sequence, account, type, amount, balance, counterparty) -> {
+                assertTrue(sequence > lastSequence[0]);
+                assertTrue(amount > lastAmount[(int) account]);
+                lastSequence[0] = sequence;
+                lastAmount[(int) account] = amount;
+            });
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        assertEquals(0, subscriber.getLag());
+        assertEquals(20000, received + subscriber.getLost());
+    }
+}
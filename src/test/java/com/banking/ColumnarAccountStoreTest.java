@@ -0,0 +1,133 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ColumnarAccountStore
+ */
+public class ColumnarAccountStoreTest {
+    
+    private static final String[] TYPES = {"Savings", "Premium", "Regular", "Savings"};
+    private static final double[] BALANCES = {5000, 50000, 4000, 150000.55};
+    
+    private ColumnarAccountStore store;
+    private AccountManager[] accounts;
+    
+    @BeforeEach
+    public void setUp() {
+        store = new ColumnarAccountStore(2);
+        accounts = new AccountManager[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            accounts[i] = new AccountManager(TYPES[i], BALANCES[i]);
+            store.add(1000000000L + i, TYPES[i], BALANCES[i]);
+        }
+    }
+    
+    @Test
+    public void testAddAndRead() {
+        assertEquals(4, store.size());
+        assertEquals(1000000001L, store.getAccountNumber(1));
+        assertEquals("Premium", store.getAccountType(1));
+        assertEquals(AccountType.PREMIUM, store.getTypeCode(1));
+        assertEquals(50000, store.getOverdraftLimit(1), 0.001);
+        assertEquals(15000055L, store.getBalanceMinor(3));
+        assertTrue(store.isActive(0));
+        assertThrows(IllegalArgumentException.class, () -> store.getBalance(4));
+    }
+    
+    @Test
+    public void testApplyInterestMatchesAccountManager() {
+        long total = store.applyInterest(6.5);
+        double expectedTotal = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            double before = accounts[i].getBalance();
+            accounts[i].applyInterest(6.5);
+            expectedTotal += accounts[i].getBalance() - before;
+            assertEquals(accounts[i].getBalance(), store.getBalance(i), 0.001);
+        }
+        assertEquals(expectedTotal, total / 100.0, 0.001);
+    }
+    
+    @Test
+    public void testDeductMaintenanceMatchesAccountManager() {
+        boolean[] paid = new boolean[store.size()];
+        store.deductMaintenanceCharges(paid);
+        for (int i = 0; i < accounts.length; i++) {
+            assertEquals(accounts[i].deductMaintenanceCharge(), paid[i]);
+            assertEquals(accounts[i].getBalance(), store.getBalance(i), 0.001);
+        }
+    }
+    
+    @Test
+    public void testDeductMaintenanceInsufficientBalance() {
+        int index = store.add(1999999999L, "Savings", 200);
+        boolean[] paid = new boolean[store.size()];
+        store.deductMaintenanceCharges(index, index + 1, paid);
+        assertFalse(paid[index]);
+        assertEquals(200, store.getBalance(index), 0.001);
+    }
+    
+    @Test
+    public void testOverdraftFeesMatchAccountManager() {
+        double[] withdrawals = {0, 60000, 5000.5, 0};
+        for (int i = 0; i < accounts.length; i++) {
+            if (withdrawals[i] > 0) {
+                accounts[i].withdraw(withdrawals[i]);
+            }
+        }
+        ColumnarAccountStore overdrawn = new ColumnarAccountStore();
+        for (int i = 0; i < accounts.length; i++) {
+            overdrawn.add(1000000000L + i, accounts[i]);
+        }
+        
+        long[] fees = new long[overdrawn.size()];
+        long total = overdrawn.calculateOverdraftFees(fees);
+        double expectedTotal = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            assertEquals(accounts[i].calculateOverdraftFee(), fees[i] / 100.0, 0.001);
+            expectedTotal += accounts[i].calculateOverdraftFee();
+        }
+        assertEquals(expectedTotal, total / 100.0, 0.001);
+    }
+    
+    @Test
+    public void testFindUpgradeEligible() {
+        int index = store.add(1888888888L, AccountType.SAVINGS, 10000000L, 0, 20, true);
+        boolean[] eligible = new boolean[store.size()];
+        assertEquals(1, store.findUpgradeEligible(0, store.size(), eligible));
+        assertTrue(eligible[index]);
+        assertFalse(eligible[3]);
+    }
+    
+    @Test
+    public void testIndexOfAndApplyPosting() {
+        assertEquals(2, store.indexOf(1000000002L));
+        assertEquals(-1, store.indexOf(1234567890L));
+        assertThrows(IllegalArgumentException.class, () -> store.add(1000000002L, "Regular", 10));
+        
+        int index = store.applyPosting(PostingType.OPEN, 1234567890L, 700000L, AccountType.SAVINGS, 700000L);
+        assertEquals(index, store.indexOf(1234567890L));
+        store.applyPosting(PostingType.WITHDRAWAL, 1234567890L, 200000L, 0, 500000L);
+        store.applyPosting(PostingType.UPGRADE, 1234567890L, 0, AccountType.PREMIUM, 500000L);
+        assertEquals(500000L, store.getBalanceMinor(index));
+        assertEquals(1, store.getTransactionCount(index));
+        assertEquals("Premium", store.getAccountType(index));
+        assertEquals(50000, store.getOverdraftLimit(index), 0.001);
+        assertThrows(IllegalArgumentException.class,
+                     () -> store.applyPosting(PostingType.DEPOSIT, 1999999999L, 100, 0, 100));
+        
+        // A re-announced OPEN refreshes the account instead of adding it again
+        assertEquals(index, store.applyPosting(PostingType.OPEN, 1234567890L, 500000L, AccountType.PREMIUM, 500000L));
+        assertEquals(500000L, store.getBalanceMinor(index));
+        assertEquals(1, store.getTransactionCount(index));
+        assertEquals("Premium", store.getAccountType(index));
+    }
+    
+    @Test
+    public void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> store.applyInterest(6, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.applyInterest(-1));
+    }
+}
@@ -0,0 +1,460 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for ConcurrentAccountManager
+ */
+public class ConcurrentAccountManagerTest {
+    
+    private ConcurrentAccountManager savingsAccount;
+    private ConcurrentAccountManager regularAccount;
+    
+    @BeforeEach
+    public void setUp() {
+        savingsAccount = new ConcurrentAccountManager("Savings", 10000);
+        regularAccount = new ConcurrentAccountManager("Regular", 5000);
+    }
+    
+    @Test
+    public void testDepositAndWithdraw() {
+        assertTrue(savingsAccount.deposit(5000.25));
+        assertTrue(savingsAccount.withdraw(2000.10));
+        assertEquals(13000.15, savingsAccount.getBalance(), 0.001);
+        assertEquals(1300015, savingsAccount.getBalanceMinor());
+        assertEquals(2, savingsAccount.getTransactionCount());
+    }
+    
+    @Test
+    public void testDepositRules() {
+        assertFalse(savingsAccount.deposit(0));
+        assertThrows(IllegalArgumentException.class, () -> savingsAccount.deposit(1500000));
+        savingsAccount.closeAccount();
+        assertThrows(IllegalStateException.class, () -> savingsAccount.deposit(5000));
+    }
+    
+    @Test
+    public void testWithdrawRules() {
+        assertFalse(savingsAccount.withdraw(15000));
+        assertTrue(regularAccount.withdraw(12000));
+        assertEquals(-7000, regularAccount.getBalance(), 0.001);
+        assertTrue(regularAccount.isOverdrawn());
+        assertEquals(500.0, regularAccount.calculateOverdraftFee(), 0.001);
+        
+        ConcurrentAccountManager richSavings = new ConcurrentAccountManager("Savings", 100000);
+        assertThrows(IllegalArgumentException.class, () -> richSavings.withdraw(60000));
+        assertFalse(richSavings.withdraw(1e20));
+        assertFalse(richSavings.withdraw(Double.POSITIVE_INFINITY));
+        assertEquals(100000, richSavings.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testInterestAndMaintenance() {
+        assertEquals(50.0, savingsAccount.calculateMonthlyInterest(6), 0.001);
+        savingsAccount.applyInterest(6);
+        assertEquals(10050.0, savingsAccount.getBalance(), 0.001);
+        
+        ConcurrentAccountManager lowBalance = new ConcurrentAccountManager("Regular", 4000);
+        assertEquals(300.0, lowBalance.calculateMaintenanceCharge(), 0.001);
+        assertTrue(lowBalance.deductMaintenanceCharge());
+        assertEquals(3700.0, lowBalance.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testUpgradeAndClose() {
+        ConcurrentAccountManager account = new ConcurrentAccountManager("Savings", 150000);
+        for (int i = 0; i < 20; i++) {
+            account.deposit(100);
+        }
+        assertTrue(account.upgradeAccount("Premium"));
+        assertEquals("Premium", account.getAccountType());
+        assertEquals(50000, account.getOverdraftLimit(), 0.001);
+        
+        regularAccount.withdraw(6000);
+        assertFalse(regularAccount.closeAccount());
+        assertTrue(savingsAccount.closeAccount());
+        assertFalse(savingsAccount.isActive());
+    }
+    
+    @Test
+    public void testConcurrentDepositsOnSharedAccount() throws Exception {
+        ConcurrentAccountManager shared = new ConcurrentAccountManager("Regular", 0);
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 10000; i++) {
+                shared.deposit(1.01);
+            }
+        });
+        assertEquals(80800, shared.getBalance(), 0.001);
+        assertEquals(80000, shared.getTransactionCount());
+    }
+    
+    @Test
+    public void testConcurrentWithdrawalsNeverExceedOverdraft() throws Exception {
+        ConcurrentAccountManager shared = new ConcurrentAccountManager("Regular", 1000);
+        AtomicInteger succeeded = new AtomicInteger();
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 1000; i++) {
+                if (shared.withdraw(10)) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(1100, succeeded.get());
+        assertEquals(-10000, shared.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testTransferMovesBothLegs() {
+        assertTrue(savingsAccount.transfer(regularAccount, 3000));
+        assertEquals(7000, savingsAccount.getBalance(), 0.001);
+        assertEquals(8000, regularAccount.getBalance(), 0.001);
+        assertEquals(1, savingsAccount.getTransactionCount());
+        assertEquals(1, regularAccount.getTransactionCount());
+        assertFalse(savingsAccount.transfer(regularAccount, 20000));
+    }
+    
+    @Test
+    public void testRejectedTransferLeavesBothAccountsUntouched() {
+        ConcurrentAccountManager rich = new ConcurrentAccountManager("Premium", 2000000);
+        assertThrows(IllegalArgumentException.class, () -> rich.transfer(regularAccount, 1500000));
+        assertEquals(2000000, rich.getBalance(), 0.001);
+        assertEquals(5000, regularAccount.getBalance(), 0.001);
+        
+        ConcurrentAccountManager richSavings = new ConcurrentAccountManager("Savings", 100000);
+        assertThrows(IllegalArgumentException.class, () -> richSavings.transfer(regularAccount, 60000));
+        assertEquals(100000, richSavings.getBalance(), 0.001);
+        
+        regularAccount.closeAccount();
+        assertFalse(savingsAccount.transfer(regularAccount, 100));
+        assertEquals(10000, savingsAccount.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testOpposingTransfersConserveMoney() throws Exception {
+        ConcurrentAccountManager a = new ConcurrentAccountManager("Regular", 100000);
+        ConcurrentAccountManager b = new ConcurrentAccountManager("Regular", 100000);
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 5000; i++) {
+                if (i % 2 == 0) {
+                    a.transfer(b, 7);
+                } else {
+                    b.transfer(a, 7);
+                }
+                a.deposit(1);
+            }
+        });
+        assertEquals(240000, a.getBalance() + b.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testTransferBatch() {
+        ConcurrentAccountManager employer = new ConcurrentAccountManager("Premium", 10000);
+        ConcurrentAccountManager[] sources = {employer, employer, employer, savingsAccount, regularAccount};
+        ConcurrentAccountManager[] targets = {savingsAccount, regularAccount, regularAccount, employer, employer};
+        double[] amounts = {40000, 15000, 20000, 1500000, Double.NaN};
+        boolean[] results = new boolean[5];
+        
+        int posted = ConcurrentAccountManager.transferBatch(sources, targets, amounts, results);
+        
+        assertEquals(2, posted);
+        assertArrayEquals(new boolean[] {true, true, false, false, false}, results);
+        assertEquals(-45000, employer.getBalance(), 0.001);
+        assertEquals(50000, savingsAccount.getBalance(), 0.001);
+        assertEquals(20000, regularAccount.getBalance(), 0.001);
+        assertEquals(2, employer.getTransactionCount());
+        assertTrue(savingsAccount.deposit(1));
+    }
+    
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+    
+    @Test
+    public void testPostEntryAppliesAllLegs() {
+        ConcurrentAccountManager payer = new ConcurrentAccountManager(1L, "Regular", 1000);
+        ConcurrentAccountManager merchant = new ConcurrentAccountManager(2L, "Regular", 0);
+        ConcurrentAccountManager fees = new ConcurrentAccountManager(3L, "Regular", 0);
+        ConcurrentAccountManager tax = new ConcurrentAccountManager(4L, "Regular", 0);
+        List<String> postings = new ArrayList<>();
+        PostingListener listener = (account, type, amount, balance, counterparty) ->
+                postings.add(account.getAccountNumber() + ":" + type + ":" + amount);
+        payer.setPostingListener(listener);
+        merchant.setPostingListener(listener);
+        
+        ConcurrentAccountManager.EntryMetrics metrics = new ConcurrentAccountManager.EntryMetrics();
+        int result = ConcurrentAccountManager.postEntry(
+                new ConcurrentAccountManager[] {payer, merchant, fees, tax, payer},
+                new long[] {-50000, 49000, 920, 180, -100}, metrics);
+        assertEquals(ResultCode.POSTED, result);
+        assertEquals(49900, payer.getBalanceMinor());
+        assertEquals(49000, merchant.getBalanceMinor());
+        assertEquals(920, fees.getBalanceMinor());
+        assertEquals(180, tax.getBalanceMinor());
+        assertEquals(1, payer.getTransactionCount());
+        assertEquals(List.of("1:" + PostingType.TRANSFER_OUT + ":50100", "2:" + PostingType.TRANSFER_IN + ":49000"),
+                     postings);
+        assertEquals(1, metrics.getCommits());
+        assertEquals(0.0, metrics.getAbortRate(), 0.0);
+    }
+    
+    @Test
+    public void testPostEntryRejectsWithoutPartialLegs() {
+        ConcurrentAccountManager payer = new ConcurrentAccountManager(1L, "Savings", 100);
+        ConcurrentAccountManager payee = new ConcurrentAccountManager(2L, "Regular", 0);
+        ConcurrentAccountManager closed = new ConcurrentAccountManager(3L, "Regular", 0);
+        closed.closeAccount();
+        ConcurrentAccountManager[] legs = {payer, payee};
+        
+        assertEquals(ResultCode.REJECTED, ConcurrentAccountManager.postEntry(legs, new long[] {-20000, 20000}));
+        assertEquals(ResultCode.REJECTED, ConcurrentAccountManager.postEntry(
+                new ConcurrentAccountManager[] {payer, closed}, new long[] {-100, 100}));
+        ConcurrentAccountManager rich = new ConcurrentAccountManager(4L, "Savings", 200000);
+        assertEquals(ResultCode.INVALID, ConcurrentAccountManager.postEntry(
+                new ConcurrentAccountManager[] {rich, payee}, new long[] {-6000000, 6000000}));
+        assertEquals(10000, payer.getBalanceMinor());
+        assertEquals(0, payee.getBalanceMinor());
+        assertEquals(20000000, rich.getBalanceMinor());
+        
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConcurrentAccountManager.postEntry(legs, new long[] {-100, 99}));
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConcurrentAccountManager.postEntry(new ConcurrentAccountManager[] {payer}, new long[] {0}));
+    }
+    
+    @Test
+    public void testConcurrentEntriesConserveMoney() throws Exception {
+        ConcurrentAccountManager[] accounts = new ConcurrentAccountManager[6];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new ConcurrentAccountManager(i, "Premium", 10000);
+        }
+        ConcurrentAccountManager.EntryMetrics metrics = new ConcurrentAccountManager.EntryMetrics();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    int a = (seed + i) % accounts.length;
+                    int b = (seed + i * 7 + 1) % accounts.length;
+                    int c = (seed * 3 + i * 5 + 2) % accounts.length;
+                    ConcurrentAccountManager.postEntry(new ConcurrentAccountManager[] {accounts[a], accounts[b], accounts[c]},
+                                                       new long[] {-300, 200, 100}, metrics);
+                    accounts[a].deposit(1);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        long total = 0;
+        for (ConcurrentAccountManager account : accounts) {
+            total += account.getBalanceMinor();
+        }
+        assertEquals(6 * 1000000L + 4 * 5000 * 100L, total);
+        assertEquals(20000, metrics.getCommits() + metrics.getRejections());
+        assertTrue(metrics.getAbortRate() >= 0.0 && metrics.getAbortRate() < 1.0);
+    }
+    
+    @Test
+    public void testStripedDepositsFromManyThreads() throws Exception {
+        ConcurrentAccountManager merchant = new ConcurrentAccountManager(9L, "Regular", 0);
+        merchant.enableStripedDeposits();
+        assertTrue(merchant.isStripedDeposits());
+        
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    merchant.deposit(1.25);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertEquals(100000.0, merchant.getBalance(), 0.001);
+        assertEquals(80000, merchant.getTransactionCount());
+        assertEquals(110000.0, merchant.getAvailableBalance(), 0.001);
+    }
+    
+    @Test
+    public void testStripedDepositsFoldIntoWithdrawalsAndTransfers() {
+        ConcurrentAccountManager merchant = new ConcurrentAccountManager(9L, "Regular", 0);
+        ConcurrentAccountManager supplier = new ConcurrentAccountManager(10L, "Regular", 0);
+        merchant.enableStripedDeposits();
+        for (int i = 0; i < 10; i++) {
+            merchant.deposit(1000);
+        }
+        
+        // 10,000 deposited plus the 10,000 overdraft
+        assertFalse(merchant.withdraw(20000.01));
+        assertTrue(merchant.withdraw(15000));
+        assertTrue(merchant.isOverdrawn());
+        assertEquals(500.0, merchant.calculateOverdraftFee(), 0.0);
+        
+        merchant.deposit(9000);
+        assertTrue(merchant.transfer(supplier, 4000));
+        assertEquals(0.0, merchant.getBalance(), 0.001);
+        assertEquals(ResultCode.POSTED, ConcurrentAccountManager.postEntry(
+                new ConcurrentAccountManager[] {supplier, merchant}, new long[] {-100000, 100000}));
+        merchant.deposit(500);
+        assertEquals(ResultCode.POSTED, ConcurrentAccountManager.postEntry(
+                new ConcurrentAccountManager[] {merchant, supplier}, new long[] {-150000, 150000}));
+        assertEquals(0.0, merchant.getBalance(), 0.001);
+        assertEquals(4500.0, supplier.getBalance(), 0.001);
+        
+        assertTrue(merchant.closeAccount());
+        assertThrows(IllegalStateException.class, () -> merchant.deposit(1));
+    }
+    
+    @Test
+    public void testStripedDepositsConcurrentWithWithdrawalsNeverOverdraw() throws Exception {
+        ConcurrentAccountManager account = new ConcurrentAccountManager(11L, "Savings", 0);
+        account.enableStripedDeposits();
+        AtomicInteger withdrawn = new AtomicInteger();
+        Thread depositor = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                account.deposit(1);
+            }
+        });
+        Thread withdrawer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                if (account.withdraw(1)) {
+                    withdrawn.incrementAndGet();
+                }
+                assertFalse(account.isOverdrawn());
+            }
+        });
+        depositor.start();
+        withdrawer.start();
+        depositor.join();
+        withdrawer.join();
+        
+        assertEquals(20000 - withdrawn.get(), account.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testEntryCountsPendingStripedDeposits() {
+        ConcurrentAccountManager hot = new ConcurrentAccountManager(12L, "Savings", 0);
+        ConcurrentAccountManager other = new ConcurrentAccountManager(13L, "Savings", 0);
+        hot.enableStripedDeposits();
+        hot.deposit(50000);
+        
+        ConcurrentAccountManager[] legs = {hot, other};
+        assertEquals(ResultCode.POSTED, ConcurrentAccountManager.postEntry(legs, new long[] {-3000000, 3000000}));
+        assertEquals(20000.0, hot.getBalance(), 0.001);
+        assertEquals(ResultCode.REJECTED, ConcurrentAccountManager.postEntry(legs, new long[] {-2000001, 2000001}));
+    }
+    
+    @Test
+    public void testStripedDepositsRacingCloseNeverLandInClosedAccount() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            ConcurrentAccountManager account = new ConcurrentAccountManager(14L, "Regular", 0);
+            account.enableStripedDeposits();
+            AtomicInteger accepted = new AtomicInteger();
+            Thread depositor = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        account.deposit(1);
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            depositor.start();
+            assertTrue(account.closeAccount());
+            depositor.join();
+            
+            assertFalse(account.isActive());
+            assertEquals(accepted.get(), account.getBalance(), 0.001);
+        }
+    }
+    
+    @Test
+    public void testConcurrentPostingsReportedInOrder() throws Exception {
+        ConcurrentAccountManager shared = new ConcurrentAccountManager(1234567890L, "Premium", 1000);
+        long[] last = {shared.getBalanceMinor()};
+        AtomicInteger outOfOrder = new AtomicInteger();
+        shared.setPostingListener((account, type, amount, balance, counterparty) -> {
+            // Called under the claim, so the records chain without a lock
+            if (balance != last[0] + PostingType.signedAmount(type, amount)) {
+                outOfOrder.incrementAndGet();
+            }
+            last[0] = balance;
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    shared.deposit(3);
+                    shared.withdraw(2);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, outOfOrder.get());
+        assertEquals(shared.getBalanceMinor(), last[0]);
+    }
+    
+    @Test
+    public void testSelfTransferIsAtomicNoOp() throws Exception {
+        ConcurrentAccountManager account = new ConcurrentAccountManager(1234567890L, "Regular", 1000);
+        List<Byte> types = new ArrayList<>();
+        account.setPostingListener((posted, type, amount, balance, counterparty) -> types.add(type));
+        assertTrue(account.transfer(account, 500));
+        assertEquals(1000, account.getBalance(), 0.001);
+        assertEquals(2, account.getTransactionCount());
+        assertEquals(List.of(PostingType.TRANSFER_OUT, PostingType.TRANSFER_IN), types);
+        assertFalse(account.transfer(account, 20000));
+        
+        // Other threads never see the debit without its credit
+        AtomicInteger torn = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                if (account.getBalanceMinor() != 100000) {
+                    torn.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            account.transfer(account, 700);
+        }
+        reader.join();
+        assertEquals(0, torn.get());
+    }
+}
@@ -0,0 +1,118 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for DedupeCache and IdempotentPostings
+ */
+public class DedupeCacheTest {
+    
+    private final AtomicLong now = new AtomicLong();
+    
+    @Test
+    public void testRejectsDuplicates() {
+        DedupeCache cache = new DedupeCache(100, 1, TimeUnit.MINUTES);
+        assertTrue(cache.tryClaim(42));
+        assertFalse(cache.tryClaim(42));
+        assertTrue(cache.tryClaim(-42));
+        assertTrue(cache.contains(42));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+    
+    @Test
+    public void testExpiresAfterTimeToLive() {
+        DedupeCache cache = new DedupeCache(100, 1000, 4, now::get);
+        cache.tryClaim(1);
+        now.set(500);
+        cache.tryClaim(2);
+        now.set(1000);
+        assertFalse(cache.contains(1));
+        assertTrue(cache.contains(2));
+        assertTrue(cache.tryClaim(1));
+        assertEquals(1, cache.getExpirations());
+    }
+    
+    @Test
+    public void testEvictsOldestWhenFull() {
+        DedupeCache cache = new DedupeCache(4, 1000, 1, now::get);
+        for (long id = 0; id < 6; id++) {
+            assertTrue(cache.tryClaim(id));
+        }
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.getEvictions());
+        assertFalse(cache.contains(0));
+        assertFalse(cache.contains(1));
+        assertTrue(cache.contains(5));
+    }
+    
+    @Test
+    public void testReleaseKeepsIndexConsistent() {
+        DedupeCache cache = new DedupeCache(1000, 1000, 1, now::get);
+        for (long id = 0; id < 500; id++) {
+            cache.tryClaim(id * 1024);
+        }
+        for (long id = 0; id < 500; id += 2) {
+            cache.release(id * 1024);
+        }
+        for (long id = 0; id < 500; id++) {
+            assertEquals(id % 2 == 1, cache.contains(id * 1024));
+        }
+        assertEquals(250, cache.size());
+    }
+    
+    @Test
+    public void testConcurrentClaimsAdmitEachIdOnce() throws Exception {
+        DedupeCache cache = new DedupeCache(100000, 1, TimeUnit.MINUTES);
+        AtomicInteger admitted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (long id = 0; id < 10000; id++) {
+                    if (cache.tryClaim(id)) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10000, admitted.get());
+        assertEquals(30000, cache.getHits());
+    }
+    
+    @Test
+    public void testIdempotentPostings() {
+        IdempotentPostings postings = new IdempotentPostings(new DedupeCache(100, 1, TimeUnit.MINUTES));
+        ConcurrentAccountManager source = new ConcurrentAccountManager("Savings", 1000);
+        ConcurrentAccountManager target = new ConcurrentAccountManager("Regular", 0);
+        
+        assertEquals(ResultCode.POSTED, postings.transfer(7, source, target, 400));
+        assertEquals(ResultCode.DUPLICATE, postings.transfer(7, source, target, 400));
+        assertEquals(600, source.getBalance(), 0.001);
+        
+        assertEquals(ResultCode.REJECTED, postings.withdraw(8, source, 5000));
+        assertEquals(ResultCode.POSTED, postings.withdraw(8, source, 100));
+        assertThrows(IllegalArgumentException.class, () -> postings.deposit(9, target, 2000000));
+        assertEquals(ResultCode.POSTED, postings.deposit(9, target, 20));
+        assertEquals(420, target.getBalance(), 0.001);
+    }
+    
+    @Test
+    public void testIdempotentPostingsOnAccountManager() {
+        IdempotentPostings postings = new IdempotentPostings(new DedupeCache(100, 1, TimeUnit.MINUTES));
+        AccountManager account = new AccountManager("Regular", 100);
+        assertEquals(ResultCode.POSTED, postings.deposit(1, account, 50));
+        assertEquals(ResultCode.DUPLICATE, postings.deposit(1, account, 50));
+        assertEquals(150, account.getBalance(), 0.001);
+        assertEquals("DUPLICATE", ResultCode.nameOf(ResultCode.DUPLICATE));
+    }
+}
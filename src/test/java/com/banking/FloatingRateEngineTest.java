@@ -0,0 +1,109 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+/**
+ * Test class for FloatingRateEngine
+ */
+public class FloatingRateEngineTest {
+    
+    private final LoanCalculator loanCalculator = new LoanCalculator();
+    private final FloatingRateEngine engine = new FloatingRateEngine(loanCalculator);
+    
+    @Test
+    public void testKeepTenureRepricesFromOutstanding() {
+        double outstanding = loanCalculator.calculateRemainingPrincipal(3000000, 8, 240, 60);
+        double emi = engine.emiKeepingTenure(outstanding, 9, 180);
+        assertEquals(loanCalculator.calculateEMI(outstanding, 9, 180), emi, 0.0);
+        assertTrue(emi > loanCalculator.calculateEMI(3000000, 8, 240));
+    }
+    
+    @Test
+    public void testKeepEmiFindsTenureThatRepays() {
+        double emi = loanCalculator.calculateEMI(3000000, 8, 240);
+        double outstanding = loanCalculator.calculateRemainingPrincipal(3000000, 8, 240, 60);
+        assertEquals(180, engine.tenureKeepingEmi(outstanding, 8, emi));
+        
+        int longer = engine.tenureKeepingEmi(outstanding, 9, emi);
+        int shorter = engine.tenureKeepingEmi(outstanding, 7, emi);
+        assertTrue(longer > 180);
+        assertTrue(shorter < 180);
+        // The EMI repays the loan within the new tenure, but not one month earlier
+        assertTrue(loanCalculator.calculateEMI(outstanding, 9, longer) <= emi);
+        assertTrue(loanCalculator.calculateEMI(outstanding, 9, longer - 1) > emi);
+    }
+    
+    @Test
+    public void testKeepEmiAddsMonthForRemainderBeyondRounding() {
+        // 10,000 a month at 12% exactly repays this outstanding in 24 months
+        double outstanding = 10000 * (1 - Math.pow(1.01, -24)) / 0.01;
+        assertEquals(24, engine.tenureKeepingEmi(outstanding, 12, 10000));
+        assertEquals(24, engine.tenureKeepingEmi(outstanding + 0.05, 12, 10000));
+        assertEquals(25, engine.tenureKeepingEmi(outstanding + 5, 12, 10000));
+    }
+    
+    @Test
+    public void testKeepEmiEdgeCases() {
+        assertEquals(12, engine.tenureKeepingEmi(120000, 0, 10000));
+        assertEquals(13, engine.tenureKeepingEmi(120001, 0, 10000));
+        assertEquals(0, engine.tenureKeepingEmi(0, 8, 10000));
+        assertEquals(-1, engine.tenureKeepingEmi(1200000, 12, 12000));
+        assertThrows(IllegalArgumentException.class, () -> engine.tenureKeepingEmi(1000, -1, 100));
+        assertThrows(IllegalArgumentException.class, () -> engine.tenureKeepingEmi(1000, 8, 0));
+    }
+    
+    @Test
+    public void testBookResetMatchesScalarResets() {
+        int n = 20000;
+        double[] outstandings = new double[n];
+        double[] rates = new double[n];
+        int[] months = new int[n];
+        double[] emis = new double[n];
+        for (int i = 0; i < n; i++) {
+            outstandings[i] = 200000 + (i % 503) * 4000;
+            months[i] = 12 + i % 300;
+            emis[i] = loanCalculator.calculateEMI(outstandings[i], 8, months[i]);
+            rates[i] = 8.25 + (i % 3) * 0.25;
+        }
+        int[] originalMonths = months.clone();
+        double[] originalEmis = emis.clone();
+        
+        int[] keptMonths = months.clone();
+        double[] keptEmis = emis.clone();
+        assertEquals(0, engine.resetBook(outstandings, rates, keptMonths, keptEmis, FloatingRateEngine.KEEP_EMI));
+        assertArrayEquals(originalEmis, keptEmis, 0.0);
+        
+        engine.resetBook(outstandings, rates, months, emis, FloatingRateEngine.KEEP_TENURE);
+        assertArrayEquals(originalMonths, months);
+        for (int i = 0; i < n; i++) {
+            assertEquals(engine.tenureKeepingEmi(outstandings[i], rates[i], originalEmis[i]), keptMonths[i]);
+            assertEquals(engine.emiKeepingTenure(outstandings[i], rates[i], originalMonths[i]), emis[i], 0.0);
+        }
+    }
+    
+    @Test
+    public void testBookResetFallsBackAndSkipsClosedLoans() {
+        double[] outstandings = {1200000, 0, 500000};
+        double[] rates = {12, 9, 9};
+        int[] months = {120, 0, 60};
+        double[] emis = {12000, 5000, 10000};
+        assertEquals(1, engine.resetBook(outstandings, rates, months, emis, FloatingRateEngine.KEEP_EMI));
+        assertEquals(120, months[0]);
+        assertEquals(loanCalculator.calculateEMI(1200000, 12, 120), emis[0], 0.0);
+        assertEquals(0, months[1]);
+        assertEquals(5000, emis[1], 0.0);
+        assertEquals(10000, emis[2], 0.0);
+        
+        assertThrows(IllegalArgumentException.class, () -> engine.resetBook(
+            outstandings, rates, months, emis, 2));
+        assertThrows(IllegalArgumentException.class, () -> engine.resetBook(
+            outstandings, new double[2], months, emis, FloatingRateEngine.KEEP_TENURE));
+        double[] negative = new double[3];
+        Arrays.fill(negative, -1);
+        assertThrows(IllegalArgumentException.class, () -> engine.resetBook(
+            outstandings, negative, months, emis, FloatingRateEngine.KEEP_TENURE));
+    }
+}
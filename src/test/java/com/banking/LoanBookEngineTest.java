@@ -0,0 +1,73 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for LoanBookEngine
+ */
+public class LoanBookEngineTest {
+    
+    private final LoanCalculator loanCalculator = new LoanCalculator();
+    
+    @Test
+    public void testMatchesScalarCalculations() {
+        int n = 20000;
+        double[] principals = new double[n];
+        double[] rates = new double[n];
+        int[] tenures = new int[n];
+        for (int i = 0; i < n; i++) {
+            principals[i] = 50000 + (i % 977) * 1250.5;
+            rates[i] = (i % 37) * 0.5;
+            tenures[i] = 6 + i % 355;
+        }
+        
+        double[] emis = new double[n];
+        double[] interests = new double[n];
+        double[] amounts = new double[n];
+        new LoanBookEngine(loanCalculator).evaluate(principals, rates, tenures, emis, interests, amounts);
+        for (int i = 0; i < n; i++) {
+            assertEquals(loanCalculator.calculateEMI(principals[i], rates[i], tenures[i]), emis[i], 0.0);
+            assertEquals(loanCalculator.calculateTotalInterest(principals[i], rates[i], tenures[i]), interests[i], 0.0);
+            assertEquals(loanCalculator.calculateTotalAmount(principals[i], rates[i], tenures[i]), amounts[i], 0.0);
+        }
+    }
+    
+    @Test
+    public void testDedicatedPoolAndEmptyBook() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            LoanBookEngine engine = new LoanBookEngine(loanCalculator, pool);
+            double[] emis = new double[1];
+            double[] interests = new double[1];
+            double[] amounts = new double[1];
+            engine.evaluate(new double[] {100000}, new double[] {10}, new int[] {12}, emis, interests, amounts);
+            assertEquals(8791.59, emis[0], 0.0);
+            assertEquals(5499.08, interests[0], 0.01);
+            assertEquals(105499.08, amounts[0], 0.01);
+            
+            engine.evaluate(new double[0], new double[0], new int[0], new double[0], new double[0], new double[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testRejectsBadInput() {
+        LoanBookEngine engine = new LoanBookEngine(loanCalculator);
+        assertThrows(IllegalArgumentException.class, () -> engine.evaluate(
+            new double[2], new double[2], new int[2], new double[2], new double[1], new double[2]));
+        
+        double[] principals = new double[10000];
+        Arrays.fill(principals, 1000);
+        principals[9000] = -1;
+        double[] rates = new double[10000];
+        int[] tenures = new int[10000];
+        Arrays.fill(tenures, 12);
+        assertThrows(IllegalArgumentException.class, () -> engine.evaluate(
+            principals, rates, tenures, new double[10000], new double[10000], new double[10000]));
+    }
+}
@@ -93,6 +93,14 @@ public class LoanCalculatorTest {
         assertTrue(maxLoan > 0);
     }
     
+    @Test
+    public void testCalculateMaxLoanAmountRoundingBoundary() {
+        // Dividing by the annuity factor instead would give 9067654.06
+        assertEquals(9067654.07, loanCalculator.calculateMaxLoanAmount(361188.16, 23.77, 266), 0.0);
+        // Served from the cache the second time
+        assertEquals(9067654.07, loanCalculator.calculateMaxLoanAmount(361188.16, 23.77, 266), 0.0);
+    }
+    
     @Test
     public void testCalculateMaxLoanAmountZeroRate() {
         double maxLoan = loanCalculator.calculateMaxLoanAmount(50000, 0, 24);
@@ -207,4 +215,62 @@ public class LoanCalculatorTest {
             loanCalculator.calculatePrincipalInEMI(500, 1000);
         });
     }
+    
+    private double iterativeRemaining(double principal, double annualRate, int tenureMonths, int paidMonths) {
+        if (paidMonths == tenureMonths) {
+            return 0.0;
+        }
+        double emi = loanCalculator.calculateEMI(principal, annualRate, tenureMonths);
+        double monthlyRate = annualRate / (12 * 100);
+        double remaining = principal;
+        for (int i = 0; i < paidMonths; i++) {
+            remaining -= emi - remaining * monthlyRate;
+        }
+        return Math.max(0, remaining);
+    }
+    
+    @Test
+    public void testRemainingPrincipalMatchesMonthByMonth() {
+        double[] rates = {0, 0.5, 7.25, 8.5, 12, 24};
+        int[] tenures = {1, 12, 60, 240, 360};
+        for (double rate : rates) {
+            for (int tenure : tenures) {
+                for (int paid = 0; paid <= tenure; paid += Math.max(1, tenure / 7)) {
+                    double expected = iterativeRemaining(7500000, rate, tenure, paid);
+                    double actual = loanCalculator.calculateRemainingPrincipal(7500000, rate, tenure, paid);
+                    assertEquals(expected, actual, 0.02, rate + "% " + tenure + " months, paid " + paid);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testCalculateRemainingPrincipalsBatch() {
+        int n = 1000;
+        double[] principals = new double[n];
+        double[] rates = new double[n];
+        int[] tenures = new int[n];
+        int[] paid = new int[n];
+        for (int i = 0; i < n; i++) {
+            principals[i] = 100000 + i * 1000;
+            rates[i] = (i % 20) * 0.75;
+            tenures[i] = 12 + i % 349;
+            paid[i] = i % (tenures[i] + 1);
+        }
+        
+        double[] out = new double[n];
+        loanCalculator.calculateRemainingPrincipals(principals, rates, tenures, paid, out);
+        for (int i = 0; i < n; i++) {
+            assertEquals(loanCalculator.calculateRemainingPrincipal(principals[i], rates[i], tenures[i], paid[i]),
+                         out[i], 0.0);
+        }
+    }
+    
+    @Test
+    public void testCalculateRemainingPrincipalsRejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> loanCalculator.calculateRemainingPrincipals(
+            new double[2], new double[2], new int[2], new int[2], new double[1]));
+        assertThrows(IllegalArgumentException.class, () -> loanCalculator.calculateRemainingPrincipals(
+            new double[] {1000}, new double[] {10}, new int[] {12}, new int[] {13}, new double[1]));
+    }
 }
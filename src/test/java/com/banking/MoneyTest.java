@@ -0,0 +1,50 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for Money
+ */
+public class MoneyTest {
+    
+    @Test
+    public void testOfRupeesRoundsHalfToEven() {
+        assertEquals(12345L, Money.ofRupees(123.45));
+        assertEquals(12L, Money.ofRupees(0.125));
+        assertEquals(14L, Money.ofRupees(0.135));
+        assertEquals(-12L, Money.ofRupees(-0.125));
+        assertEquals(0L, Money.ofRupees(0.004));
+        assertThrows(ArithmeticException.class, () -> Money.ofRupees(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.ofRupees(1e17));
+    }
+    
+    @Test
+    public void testAddAndSubtractDetectOverflow() {
+        assertEquals(300L, Money.add(100, 200));
+        assertEquals(-100L, Money.subtract(100, 200));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+    }
+    
+    @Test
+    public void testApplyRate() {
+        assertEquals(5000L, Money.applyRate(1000000L, 0.005));
+        assertEquals(2L, Money.applyRate(5L, 0.5));
+        assertEquals(4L, Money.applyRate(7L, 0.5));
+    }
+    
+    @Test
+    public void testAccountManagerBalancesAreExact() {
+        AccountManager account = new AccountManager("Savings", 0.1);
+        for (int i = 0; i < 1000; i++) {
+            account.deposit(0.1);
+            account.deposit(0.2);
+        }
+        assertEquals(30010L, account.getBalanceMinor());
+        assertEquals(300.1, account.getBalance());
+        
+        account.applyInterest(6);
+        assertEquals(30160L, account.getBalanceMinor());
+    }
+}
@@ -0,0 +1,89 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for MonthEndClose
+ */
+public class MonthEndCloseTest {
+    
+    private static ColumnarAccountStore buildStore(int count) {
+        ColumnarAccountStore store = new ColumnarAccountStore();
+        for (int i = 0; i < count; i++) {
+            long balance = (i * 7919L) % 20000000L - 2000000L;
+            store.add(1000000000L + i, (byte) (i % 3), balance, 0, i % 40, i % 11 != 0);
+        }
+        return store;
+    }
+    
+    @Test
+    public void testMatchesSequentialKernels() {
+        ColumnarAccountStore parallelStore = buildStore(10000);
+        ColumnarAccountStore sequentialStore = buildStore(10000);
+        
+        MonthEndClose.Report report =
+                new MonthEndClose(parallelStore, 4.5, 512, new ForkJoinPool(4)).run();
+        
+        long interest = sequentialStore.applyInterest(4.5);
+        long maintenance = sequentialStore.deductMaintenanceCharges(null);
+        long fees = sequentialStore.calculateOverdraftFees(null);
+        int eligible = sequentialStore.findUpgradeEligible(0, sequentialStore.size(), null);
+        
+        assertEquals(interest, report.getInterestCredited());
+        assertEquals(maintenance, report.getMaintenanceCollected());
+        assertEquals(fees, report.getOverdraftFees());
+        assertEquals(eligible, report.getUpgradeEligible());
+        for (int i = 0; i < parallelStore.size(); i++) {
+            assertEquals(sequentialStore.getBalanceMinor(i), parallelStore.getBalanceMinor(i));
+        }
+        for (int phase = 0; phase < MonthEndClose.PHASE_COUNT; phase++) {
+            assertTrue(report.getPhaseNanos(phase) >= 0);
+        }
+    }
+    
+    @Test
+    public void testResumeSkipsCompletedPartitions() {
+        ColumnarAccountStore store = buildStore(3000);
+        ColumnarAccountStore expected = buildStore(3000);
+        MonthEndClose close = new MonthEndClose(store, 6, 1000, ForkJoinPool.commonPool());
+        assertEquals(3, close.getPartitionCount());
+        
+        close.runPartition(MonthEndClose.PHASE_INTEREST, 1);
+        assertTrue(close.isPartitionCompleted(MonthEndClose.PHASE_INTEREST, 1));
+        assertFalse(close.isPartitionCompleted(MonthEndClose.PHASE_INTEREST, 0));
+        
+        MonthEndClose.Report report = close.run();
+        MonthEndClose.Report reference = new MonthEndClose(expected, 6).run();
+        
+        assertEquals(reference.getInterestCredited(), report.getInterestCredited());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(expected.getBalanceMinor(i), store.getBalanceMinor(i));
+        }
+    }
+    
+    @Test
+    public void testPerAccountResults() {
+        ColumnarAccountStore store = new ColumnarAccountStore();
+        store.add(1000000000L, "Savings", 200);
+        store.add(1000000001L, AccountType.REGULAR, -500000L, 1000000L, 3, true);
+        MonthEndClose close = new MonthEndClose(store, 6);
+        close.run();
+        
+        assertFalse(close.getMaintenancePaid()[0]);
+        assertEquals(50000L, close.getOverdraftFees()[1]);
+        assertFalse(close.getUpgradeEligible()[0]);
+    }
+    
+    @Test
+    public void testEmptyStoreAndInvalidArguments() {
+        MonthEndClose close = new MonthEndClose(new ColumnarAccountStore(), 6);
+        assertEquals(0, close.getPartitionCount());
+        assertEquals(0, close.run().getInterestCredited());
+        assertThrows(IllegalArgumentException.class, () -> close.runPartition(0, 0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new MonthEndClose(new ColumnarAccountStore(), -1));
+    }
+}
@@ -0,0 +1,195 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for OffHeapAccountStore
+ */
+public class OffHeapAccountStoreTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    public void testAddAndFind() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(100)) {
+            int slot = store.add(5001L, "Savings", 2500.50);
+            store.add(5002L, "Premium", 0);
+            assertEquals(2, store.size());
+            assertEquals(slot, store.indexOf(5001L));
+            assertEquals(-1, store.indexOf(9999L));
+            
+            OffHeapAccountStore.Cursor cursor = store.cursor();
+            assertTrue(cursor.find(5002L));
+            assertEquals("Premium", cursor.getAccountType());
+            assertEquals(50000.0, cursor.getOverdraftLimit(), 0.001);
+            assertTrue(cursor.find(5001L));
+            assertEquals(2500.50, cursor.getBalance(), 0.001);
+            assertTrue(cursor.isActive());
+            assertFalse(cursor.find(9999L));
+            
+            assertThrows(IllegalArgumentException.class, () -> store.add(5001L, "Regular", 0));
+            assertThrows(IllegalArgumentException.class, () -> store.add(5003L, "Regular", -1));
+        }
+    }
+    
+    @Test
+    public void testMatchesAccountManager() throws Exception {
+        String[] types = {"Regular", "Savings", "Premium"};
+        try (OffHeapAccountStore store = new OffHeapAccountStore(10)) {
+            OffHeapAccountStore.Cursor cursor = store.cursor();
+            for (int i = 0; i < types.length; i++) {
+                AccountManager account = new AccountManager(types[i], 8000);
+                cursor.at(store.add(i, types[i], 8000));
+                
+                assertEquals(account.deposit(1234.565), cursor.deposit(1234.565));
+                assertEquals(account.withdraw(20000), cursor.withdraw(20000));
+                assertEquals(account.withdraw(9000), cursor.withdraw(9000));
+                assertEquals(account.getBalanceMinor(), cursor.getBalanceMinor());
+                
+                assertEquals(account.calculateMonthlyInterest(4.5), cursor.calculateMonthlyInterest(4.5), 0.0);
+                account.applyInterest(4.5);
+                cursor.applyInterest(4.5);
+                assertEquals(account.calculateMaintenanceCharge(), cursor.calculateMaintenanceCharge(), 0.0);
+                assertEquals(account.deductMaintenanceCharge(), cursor.deductMaintenanceCharge());
+                assertEquals(account.calculateOverdraftFee(), cursor.calculateOverdraftFee(), 0.0);
+                assertEquals(account.getBalanceMinor(), cursor.getBalanceMinor());
+                assertEquals(account.getAvailableBalance(), cursor.getAvailableBalance(), 0.0);
+                assertEquals(account.getTransactionCount(), cursor.getTransactionCount());
+                assertEquals(account.isOverdrawn(), cursor.isOverdrawn());
+            }
+        }
+    }
+    
+    @Test
+    public void testRulesAndClose() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(10)) {
+            OffHeapAccountStore.Cursor cursor = store.cursor().at(store.add(1L, "Savings", 200000));
+            assertThrows(IllegalArgumentException.class, () -> cursor.withdraw(60000));
+            assertThrows(IllegalArgumentException.class, () -> cursor.deposit(2000000));
+            
+            for (int i = 0; i < 20; i++) {
+                cursor.deposit(10);
+            }
+            assertTrue(cursor.canUpgrade());
+            assertFalse(cursor.upgradeAccount("Regular"));
+            assertTrue(cursor.upgradeAccount("Premium"));
+            assertEquals("Premium", cursor.getAccountType());
+            assertEquals(50000.0, cursor.getOverdraftLimit(), 0.001);
+            
+            assertTrue(cursor.closeAccount());
+            assertFalse(cursor.isActive());
+            assertThrows(IllegalStateException.class, () -> cursor.deposit(100));
+            assertEquals(0.0, cursor.calculateMaintenanceCharge(), 0.0);
+        }
+    }
+    
+    @Test
+    public void testConcurrentPostingsToOneAccount() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(10)) {
+            int slot = store.add(1L, "Regular", 0);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    OffHeapAccountStore.Cursor cursor = store.cursor().at(slot);
+                    for (int i = 0; i < 10000; i++) {
+                        cursor.deposit(2);
+                        cursor.withdraw(1);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            
+            OffHeapAccountStore.Cursor cursor = store.cursor().at(slot);
+            assertEquals(40000.0, cursor.getBalance(), 0.001);
+            assertEquals(80000, cursor.getTransactionCount());
+        }
+    }
+    
+    @Test
+    public void testDepositsRacingCloseNeverLandInClosedAccount() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(64)) {
+            for (int round = 0; round < 50; round++) {
+                int slot = store.add(100L + round, "Regular", 0);
+                AtomicInteger accepted = new AtomicInteger();
+                Thread depositor = new Thread(() -> {
+                    OffHeapAccountStore.Cursor cursor = store.cursor().at(slot);
+                    try {
+                        while (true) {
+                            cursor.deposit(1);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException closed) {
+                        // Account closed
+                    }
+                });
+                depositor.start();
+                OffHeapAccountStore.Cursor cursor = store.cursor().at(slot);
+                while (accepted.get() == 0) {
+                    Thread.onSpinWait();
+                }
+                assertTrue(cursor.closeAccount());
+                depositor.join();
+                assertFalse(cursor.isActive());
+                assertEquals(accepted.get(), cursor.getBalance(), 0.001);
+            }
+        }
+    }
+    
+    @Test
+    public void testCreditOverflowIsRefused() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(2)) {
+            OffHeapAccountStore.Cursor cursor = store.cursor().at(store.add(1L, "Savings", 9e13));
+            assertThrows(ArithmeticException.class, () -> cursor.applyInterest(2400));
+            assertEquals(9e13, cursor.getBalance(), 0.001);
+            assertTrue(cursor.deposit(1000000));
+        }
+    }
+    
+    @Test
+    public void testCapacityIsFixed() throws Exception {
+        try (OffHeapAccountStore store = new OffHeapAccountStore(2)) {
+            store.add(1L, "Regular", 0);
+            store.add(2L, "Regular", 0);
+            assertThrows(IllegalStateException.class, () -> store.add(3L, "Regular", 0));
+            assertThrows(IllegalArgumentException.class, () -> store.cursor().at(2));
+            assertThrows(IllegalArgumentException.class, () -> new OffHeapAccountStore(0));
+        }
+    }
+    
+    @Test
+    public void testMappedStoreReopens() throws Exception {
+        Path file = dir.resolve("accounts.dat");
+        try (OffHeapAccountStore store = OffHeapAccountStore.map(file, 1000, ProductCatalog.defaults())) {
+            for (int i = 0; i < 500; i++) {
+                store.add(1000L + i, i % 2 == 0 ? "Savings" : "Regular", i);
+            }
+            OffHeapAccountStore.Cursor cursor = store.cursor();
+            cursor.find(1007L);
+            cursor.withdraw(100);
+        }
+        
+        try (OffHeapAccountStore store = OffHeapAccountStore.map(file, 1000, ProductCatalog.defaults())) {
+            assertEquals(500, store.size());
+            OffHeapAccountStore.Cursor cursor = store.cursor();
+            assertTrue(cursor.find(1007L));
+            assertEquals(-93.0, cursor.getBalance(), 0.001);
+            assertEquals(1, cursor.getTransactionCount());
+            assertTrue(cursor.find(1498L + 1));
+            assertEquals("Savings", store.cursor().at(store.indexOf(1498L)).getAccountType());
+            store.add(2000L, "Premium", 5);
+            assertEquals(501, store.size());
+        }
+    }
+}
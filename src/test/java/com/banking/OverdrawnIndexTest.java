@@ -0,0 +1,148 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for OverdrawnIndex
+ */
+public class OverdrawnIndexTest {
+    
+    private AccountRegistry registry;
+    private OverdrawnIndex index;
+    
+    @BeforeEach
+    public void setUp() {
+        registry = new AccountRegistry(4, 4);
+        index = new OverdrawnIndex();
+        registry.setPostingListener(index);
+    }
+    
+    @Test
+    public void testTierOfMatchesOverdraftFee() {
+        long[] balances = {0, 100, -50, -100, -1000000, -1000099, -1000100, -5000000};
+        for (long balance : balances) {
+            int tier = OverdrawnIndex.tierOf(balance);
+            double fee = balance < 0 ? (-(balance / 100) == 0 ? 0 : (-(balance / 100) <= 10000 ? 500 : 1000)) : 0;
+            assertEquals(Money.ofRupees(fee), OverdrawnIndex.feeMinor(tier), "balance " + balance);
+        }
+        assertEquals(OverdrawnIndex.TIER_LOW, OverdrawnIndex.tierOf(-1000000));
+        assertEquals(OverdrawnIndex.TIER_HIGH, OverdrawnIndex.tierOf(-1000100));
+    }
+    
+    @Test
+    public void testPostingsMoveAccountsBetweenTiers() {
+        ConcurrentAccountManager account = registry.open(1000001001L, "Premium", 1000);
+        assertEquals(0, index.size());
+        
+        account.withdraw(3000);
+        assertTrue(index.contains(1000001001L));
+        assertEquals(1, index.count(OverdrawnIndex.TIER_LOW));
+        assertEquals(account.calculateOverdraftFee(), Money.toRupees(OverdrawnIndex.feeMinor(OverdrawnIndex.TIER_LOW)));
+        
+        account.withdraw(20000);
+        assertEquals(0, index.count(OverdrawnIndex.TIER_LOW));
+        assertEquals(1, index.count(OverdrawnIndex.TIER_HIGH));
+        
+        account.deposit(25000);
+        assertFalse(index.contains(1000001001L));
+        assertEquals(0, index.size());
+    }
+    
+    @Test
+    public void testFeeRunVisitsOnlyOverdrawnAccounts() {
+        for (long n = 0; n < 200; n++) {
+            registry.open(1000002000L + n, "Regular", 100);
+        }
+        registry.get(1000002003L).withdraw(600);
+        registry.get(1000002007L).withdraw(9000);
+        ConcurrentAccountManager premium = registry.open(1000003000L, "Premium", 0);
+        premium.withdraw(40000);
+        
+        List<Long> visited = new ArrayList<>();
+        long total = index.calculateOverdraftFees((account, fee) -> {
+            visited.add(account.getAccountNumber());
+            assertEquals(account.calculateOverdraftFee(), Money.toRupees(fee));
+        });
+        assertEquals(3, visited.size());
+        assertTrue(visited.containsAll(List.of(1000002003L, 1000002007L, 1000003000L)));
+        assertEquals(Money.ofRupees(500 + 500 + 1000), total);
+    }
+    
+    @Test
+    public void testRebuildFromRegistry() {
+        AccountRegistry unindexed = new AccountRegistry(4, 4);
+        unindexed.open(1000000001L, "Regular", 0).withdraw(5000);
+        unindexed.open(1000000002L, "Premium", 0).withdraw(20000);
+        unindexed.open(1000000003L, "Regular", 10);
+        
+        OverdrawnIndex rebuilt = OverdrawnIndex.of(unindexed);
+        assertEquals(2, rebuilt.size());
+        AtomicInteger high = new AtomicInteger();
+        rebuilt.forEachInTier(OverdrawnIndex.TIER_HIGH, (number, account) -> high.incrementAndGet());
+        assertEquals(1, high.get());
+        assertThrows(IllegalArgumentException.class, () -> rebuilt.count(OverdrawnIndex.TIER_NONE));
+    }
+    
+    @Test
+    public void testTransfersUpdateBothSides() throws Exception {
+        ConcurrentAccountManager source = registry.open(1000000001L, "Premium", 0);
+        ConcurrentAccountManager target = registry.open(1000000002L, "Regular", 0);
+        target.withdraw(5000);
+        assertTrue(index.contains(1000000002L));
+        
+        source.transfer(target, 6000);
+        assertTrue(index.contains(1000000001L));
+        assertFalse(index.contains(1000000002L));
+    }
+    
+    @Test
+    public void testConcurrentPostingsLeaveIndexConsistent() throws Exception {
+        ConcurrentAccountManager account = registry.open(1000000001L, "Premium", 0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    account.withdraw(5);
+                    account.deposit(5);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(0, account.getBalanceMinor());
+        assertFalse(index.contains(1000000001L));
+    }
+    
+    @Test
+    public void testComposedWithOtherListeners() {
+        AtomicInteger postings = new AtomicInteger();
+        AtomicInteger flushes = new AtomicInteger();
+        registry.setPostingListener(PostingListener.compose(index, new PostingListener() {
+            @Override
+            public void onPosting(ConcurrentAccountManager account, byte type, long amountMinor,
+                                  long balanceAfterMinor, long counterparty) {
+                postings.incrementAndGet();
+            }
+            
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        }));
+        
+        registry.open(1000000009L, "Regular", 0).withdraw(100);
+        assertTrue(index.contains(1000000009L));
+        assertEquals(2, postings.get());
+        assertEquals(2, flushes.get());
+    }
+}
@@ -0,0 +1,166 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for PostingJournal
+ */
+public class PostingJournalTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testAppendAndRead() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_OPERATION, 4)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, journal.append(PostingType.DEPOSIT, 1000000000L + i, 0, 100 * i, 100 * i));
+            }
+            journal.sync(10);
+            assertEquals(10, journal.getDurableSequence());
+        }
+        
+        List<long[]> records = new ArrayList<>();
+        long end = PostingJournal.read(file, 3, (sequence, type, account, counterparty, amount, balance) -> {
+            assertEquals(PostingType.DEPOSIT, type);
+            records.add(new long[] {sequence, account, amount});
+        });
+        assertEquals(10, end);
+        assertEquals(7, records.size());
+        assertArrayEquals(new long[] {3, 1000000003L, 300}, records.get(0));
+    }
+    
+    @Test
+    public void testReopenContinuesAfterLastRecord() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 8)) {
+            journal.append(PostingType.DEPOSIT, 1000000000L, 0, 500, 500);
+            journal.append(PostingType.WITHDRAWAL, 1000000000L, 0, 200, 300);
+        }
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 8)) {
+            assertEquals(2, journal.getNextSequence());
+            assertEquals(2, journal.append(PostingType.CLOSE, 1000000000L, 0, 0, 300));
+        }
+        assertEquals(3, PostingJournal.read(file, 0, (sequence, type, account, counterparty, amount, balance) -> { }));
+    }
+    
+    @Test
+    public void testReopenDiscardsRecordsAfterTornOne() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 4)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(PostingType.DEPOSIT, 1000000000L, 0, 100, 100 * (i + 1));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), 5L * PostingJournal.RECORD_SIZE + 20);
+        }
+        
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 4)) {
+            assertEquals(5, journal.getNextSequence());
+            journal.append(PostingType.DEPOSIT, 1000000000L, 0, 100, 600);
+        }
+        // Records 6 to 9 of the old run must not be read back after the new record 5
+        assertEquals(6, PostingJournal.read(file, 0, (sequence, type, account, counterparty, amount, balance) -> { }));
+    }
+    
+    @Test
+    public void testPerOperationForcesAfterTheOperation() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_OPERATION, 8)) {
+            ConcurrentAccountManager account = new ConcurrentAccountManager(1234567890L, "Regular", 0);
+            journal.onPosting(account, PostingType.DEPOSIT, 100, 100, 0);
+            assertEquals(0, journal.getDurableSequence());
+            journal.flush();
+            assertEquals(1, journal.getDurableSequence());
+            
+            account.setPostingListener(journal);
+            account.deposit(5);
+            assertEquals(2, journal.getDurableSequence());
+        }
+    }
+    
+    @Test
+    public void testJournalsAccountPostings() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 16)) {
+            AccountRegistry registry = new AccountRegistry(2, 8);
+            registry.setPostingListener(journal);
+            ConcurrentAccountManager source = registry.open(1111111111L, "Regular", 1000);
+            ConcurrentAccountManager target = registry.open(2222222222L, "Savings", 0);
+            source.deposit(500);
+            source.transfer(target, 300);
+            assertFalse(source.withdraw(100000));
+            assertEquals(journal.getNextSequence(), journal.getDurableSequence());
+        }
+        
+        List<String> lines = new ArrayList<>();
+        PostingJournal.read(file, 0, (sequence, type, account, counterparty, amount, balance) ->
+                lines.add(type + ":" + account + ":" + counterparty + ":" + amount + ":" + balance));
+        assertEquals(List.of(
+                PostingType.OPEN + ":1111111111:" + AccountType.REGULAR + ":100000:100000",
+                PostingType.OPEN + ":2222222222:" + AccountType.SAVINGS + ":0:0",
+                PostingType.DEPOSIT + ":1111111111:0:50000:150000",
+                PostingType.TRANSFER_OUT + ":1111111111:2222222222:30000:120000",
+                PostingType.TRANSFER_IN + ":2222222222:1111111111:30000:30000"), lines);
+    }
+    
+    @Test
+    public void testConcurrentGroupCommit() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.PER_BATCH, 1024)) {
+            ConcurrentAccountManager account = new ConcurrentAccountManager(1234567890L, "Regular", 0);
+            account.setPostingListener(journal);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread worker = new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        account.deposit(1);
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertEquals(2000, journal.getDurableSequence());
+        }
+        
+        long[] total = new long[1];
+        PostingJournal.read(file, 0, (sequence, type, account, counterparty, amount, balance) -> total[0] += amount);
+        assertEquals(200000, total[0]);
+    }
+    
+    @Test
+    public void testAsyncModeEventuallyDurable() throws Exception {
+        Path file = tempDir.resolve("journal.bin");
+        try (PostingJournal journal = new PostingJournal(file, PostingJournal.Durability.ASYNC, 64)) {
+            journal.append(PostingType.DEPOSIT, 1234567890L, 0, 1, 1);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (journal.getDurableSequence() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, journal.getDurableSequence());
+        }
+    }
+    
+    @Test
+    public void testAppendAfterCloseFails() throws Exception {
+        PostingJournal journal = new PostingJournal(tempDir.resolve("journal.bin"),
+                                                    PostingJournal.Durability.PER_BATCH, 8);
+        journal.close();
+        assertThrows(IllegalStateException.class,
+                     () -> journal.append(PostingType.DEPOSIT, 1234567890L, 0, 1, 1));
+    }
+}
@@ -0,0 +1,144 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Test class for ProductCatalog and ProductPolicy
+ */
+public class ProductCatalogTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private static ProductCatalog goldCatalog() {
+        Properties properties = new Properties();
+        properties.setProperty("product.Gold.code", "3");
+        properties.setProperty("product.Gold.overdraftLimit", "75000");
+        properties.setProperty("product.Gold.maintenanceCharge", "750.50");
+        properties.setProperty("product.Gold.maintenanceWaiverBalance", "200000");
+        properties.setProperty("product.Gold.interestEligible", "true");
+        properties.setProperty("product.Gold.upgradeMinBalance", "500000");
+        properties.setProperty("product.Gold.upgradeMinTransactions", "2");
+        properties.setProperty("product.Gold.upgradeTargets", "Premium");
+        properties.setProperty("product.Savings.upgradeTargets", "Premium, Gold");
+        return ProductCatalog.fromProperties(properties);
+    }
+    
+    @Test
+    public void testDefaultProducts() {
+        ProductCatalog catalog = ProductCatalog.defaults();
+        ProductPolicy savings = catalog.resolve("Savings");
+        assertEquals(AccountType.SAVINGS, savings.getCode());
+        assertEquals(0, savings.getOverdraftLimitMinor());
+        assertEquals(50000L * 100, savings.getWithdrawalCapMinor());
+        assertTrue(savings.isInterestEligible());
+        assertTrue(savings.canUpgradeTo("Premium"));
+        assertEquals(500L * 100, savings.maintenanceChargeFor(9999L * 100));
+        assertEquals(0, savings.maintenanceChargeFor(10000L * 100));
+        
+        ProductPolicy premium = catalog.get(AccountType.PREMIUM);
+        assertEquals(1000L * 100, premium.maintenanceChargeFor(1000000000000L * 100));
+        assertEquals(ProductPolicy.NO_LIMIT, premium.getWithdrawalCapMinor());
+        assertTrue(premium.getUpgradeTargets().isEmpty());
+        assertEquals(3, catalog.products().length);
+    }
+    
+    @Test
+    public void testUnknownNameFollowsRegularRules() {
+        ProductCatalog catalog = ProductCatalog.defaults();
+        assertSame(catalog.resolve("Regular"), catalog.resolve("Current"));
+        assertNull(catalog.find("Current"));
+        assertThrows(IllegalArgumentException.class, () -> catalog.get((byte) 9));
+        
+        AccountManager account = new AccountManager("Current", 1000);
+        assertEquals("Current", account.getAccountType());
+        assertEquals(10000, account.getOverdraftLimit(), 0.001);
+    }
+    
+    @Test
+    public void testLoadFromFile() throws Exception {
+        Path file = tempDir.resolve("products.properties");
+        Files.write(file, Arrays.asList(
+                "# Staff accounts",
+                "product.Staff.code=4",
+                "product.Staff.overdraftLimit=20000",
+                "product.Staff.withdrawalCap=25000",
+                "product.Regular.maintenanceCharge=350"));
+        ProductCatalog catalog = ProductCatalog.load(file);
+        
+        ProductPolicy staff = catalog.find("Staff");
+        assertEquals(4, staff.getCode());
+        assertEquals(2000000L, staff.getOverdraftLimitMinor());
+        assertEquals(0, staff.maintenanceChargeFor(0L));
+        assertFalse(staff.isInterestEligible());
+        assertEquals(35000L, catalog.resolve("Regular").getMaintenanceChargeMinor());
+        assertEquals(500000L, catalog.resolve("Regular").getMaintenanceWaiverBalanceMinor());
+        assertEquals(5, catalog.codeLimit());
+    }
+    
+    @Test
+    public void testAccountManagerUsesCustomProduct() {
+        ProductCatalog catalog = goldCatalog();
+        AccountManager account = new AccountManager("Gold", 100000, catalog);
+        assertEquals(75000, account.getOverdraftLimit(), 0.001);
+        assertEquals(750.5, account.calculateMaintenanceCharge(), 0.001);
+        assertEquals(500, account.calculateMonthlyInterest(6), 0.001);
+        assertTrue(account.withdraw(170000));
+        assertFalse(account.canUpgrade());
+    }
+    
+    @Test
+    public void testUpgradeToConfiguredTarget() {
+        ProductCatalog catalog = goldCatalog();
+        ConcurrentAccountManager account = new ConcurrentAccountManager(1000000000L, "Savings", 150000, catalog);
+        for (int i = 0; i < 20; i++) {
+            account.deposit(1);
+        }
+        assertFalse(account.upgradeAccount("Platinum"));
+        assertTrue(account.upgradeAccount("Gold"));
+        assertEquals("Gold", account.getAccountType());
+        assertEquals(75000, account.getOverdraftLimit(), 0.001);
+        assertSame(catalog.find("Gold"), account.getPolicy());
+    }
+    
+    @Test
+    public void testColumnarStoreUsesCatalogTables() {
+        ProductCatalog catalog = goldCatalog();
+        ColumnarAccountStore store = new ColumnarAccountStore(4, catalog);
+        int gold = store.add(1000000000L, "Gold", 100000);
+        assertEquals("Gold", store.getAccountType(gold));
+        assertEquals(75000, store.getOverdraftLimit(gold), 0.001);
+        assertEquals(50000L, store.applyInterest(6));
+        assertEquals(75050L, store.deductMaintenanceCharges(null));
+    }
+    
+    @Test
+    public void testInvalidConfiguration() {
+        Properties missingCode = new Properties();
+        missingCode.setProperty("product.Gold.overdraftLimit", "1000");
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.fromProperties(missingCode));
+        
+        Properties badTarget = new Properties();
+        badTarget.setProperty("product.Savings.upgradeTargets", "Diamond");
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.fromProperties(badTarget));
+        
+        Properties badAmount = new Properties();
+        badAmount.setProperty("product.Regular.overdraftLimit", "10.001");
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.fromProperties(badAmount));
+        
+        Properties unlimitedOverdraft = new Properties();
+        unlimitedOverdraft.setProperty("product.Premium.overdraftLimit", "none");
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.fromProperties(unlimitedOverdraft));
+        
+        Properties duplicateCode = new Properties();
+        duplicateCode.setProperty("product.Gold.code", "2");
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.fromProperties(duplicateCode));
+    }
+}
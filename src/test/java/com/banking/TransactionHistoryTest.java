@@ -0,0 +1,114 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for TransactionHistory
+ */
+public class TransactionHistoryTest {
+    
+    private final AtomicLong now = new AtomicLong(1000);
+    
+    private static List<long[]> collectLast(TransactionHistory history, int count) {
+        List<long[]> entries = new ArrayList<>();
+        history.last(count, (time, type, amount, balance, counterparty) ->
+                entries.add(new long[] {time, type, amount, balance, counterparty}));
+        return entries;
+    }
+    
+    @Test
+    public void testLastReturnsNewestFirst() {
+        TransactionHistory history = new TransactionHistory(8, now::get);
+        for (int i = 1; i <= 3; i++) {
+            now.addAndGet(10);
+            history.record(PostingType.DEPOSIT, i * 100, i * 1000, 0);
+        }
+        List<long[]> entries = collectLast(history, 2);
+        assertEquals(2, entries.size());
+        assertArrayEquals(new long[] {1030, PostingType.DEPOSIT, 300, 3000, 0}, entries.get(0));
+        assertEquals(200, entries.get(1)[2]);
+        assertEquals(3, collectLast(history, 10).size());
+    }
+    
+    @Test
+    public void testOverwritesOldestWhenFull() {
+        TransactionHistory history = new TransactionHistory(4, now::get);
+        for (int i = 0; i < 10; i++) {
+            history.record(PostingType.WITHDRAWAL, i, 0, 0);
+        }
+        assertEquals(4, history.size());
+        assertEquals(10, history.getTotalRecorded());
+        List<long[]> entries = collectLast(history, 4);
+        assertEquals(9, entries.get(0)[2]);
+        assertEquals(6, entries.get(3)[2]);
+    }
+    
+    @Test
+    public void testBetweenUsesHalfOpenRange() {
+        TransactionHistory history = new TransactionHistory(5, now::get);
+        for (int i = 0; i < 8; i++) {
+            now.set(100 * i);
+            history.record(PostingType.DEPOSIT, i, 0, 0);
+        }
+        List<Long> amounts = new ArrayList<>();
+        int visited = history.between(250, 600, (time, type, amount, balance, counterparty) -> amounts.add(amount));
+        assertEquals(3, visited);
+        assertEquals(List.of(3L, 4L, 5L), amounts);
+        assertEquals(0, history.between(0, 300, (time, type, amount, balance, counterparty) -> { }));
+    }
+    
+    @Test
+    public void testTimestampsNeverGoBackwards() {
+        TransactionHistory history = new TransactionHistory(4, now::get);
+        history.record(PostingType.DEPOSIT, 1, 0, 0);
+        now.set(500);
+        history.record(PostingType.DEPOSIT, 2, 0, 0);
+        assertEquals(1000, collectLast(history, 1).get(0)[0]);
+        assertEquals(2, history.between(1000, 1001, (time, type, amount, balance, counterparty) -> { }));
+    }
+    
+    @Test
+    public void testConcurrentAccountRecordsTransfers() {
+        ConcurrentAccountManager source = new ConcurrentAccountManager(1111111111L, "Regular", 1000);
+        ConcurrentAccountManager target = new ConcurrentAccountManager(2222222222L, "Regular", 0);
+        source.setTransactionHistory(new TransactionHistory(16, now::get));
+        target.setTransactionHistory(new TransactionHistory(16, now::get));
+        
+        source.deposit(50);
+        source.transfer(target, 300.25);
+        
+        List<long[]> sourceEntries = collectLast(source.getTransactionHistory(), 2);
+        assertArrayEquals(new long[] {1000, PostingType.TRANSFER_OUT, 30025, 74975, 2222222222L},
+                          sourceEntries.get(0));
+        assertEquals(PostingType.DEPOSIT, sourceEntries.get(1)[1]);
+        assertArrayEquals(new long[] {1000, PostingType.TRANSFER_IN, 30025, 30025, 1111111111L},
+                          collectLast(target.getTransactionHistory(), 1).get(0));
+    }
+    
+    @Test
+    public void testAccountManagerRecordsPostings() {
+        AccountManager source = new AccountManager("Savings", 20000);
+        AccountManager target = new AccountManager("Regular", 0);
+        source.setTransactionHistory(new TransactionHistory(16, now::get));
+        target.setTransactionHistory(new TransactionHistory(16, now::get));
+        
+        source.transfer(target, 500);
+        source.applyInterest(6);
+        target.deductMaintenanceCharge();
+        
+        List<long[]> entries = collectLast(source.getTransactionHistory(), 5);
+        assertEquals(2, entries.size());
+        assertEquals(PostingType.INTEREST, entries.get(0)[1]);
+        assertEquals(PostingType.TRANSFER_OUT, entries.get(1)[1]);
+        assertEquals(1950000, entries.get(1)[3]);
+        List<long[]> targetEntries = collectLast(target.getTransactionHistory(), 5);
+        assertEquals(PostingType.MAINTENANCE_CHARGE, targetEntries.get(0)[1]);
+        assertEquals(30000, targetEntries.get(0)[2]);
+        assertEquals(PostingType.TRANSFER_IN, targetEntries.get(1)[1]);
+    }
+}
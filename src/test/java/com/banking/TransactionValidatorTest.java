@@ -115,6 +115,13 @@ public class TransactionValidatorTest {
         });
     }
     
+    @Test
+    public void testCheckDailyLimit() {
+        assertEquals(ResultCode.ACCEPTED, validator.checkDailyLimit(100000, 100000));
+        assertEquals(ResultCode.LIMIT_EXCEEDED, validator.checkDailyLimit(150000, 100000));
+        assertEquals(ResultCode.INVALID, validator.checkDailyLimit(0, -1));
+    }
+    
     @Test
     public void testIsValidTransactionTimeValid() {
         assertTrue(validator.isValidTransactionTime(9));
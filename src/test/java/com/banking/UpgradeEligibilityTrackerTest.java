@@ -0,0 +1,133 @@
+package com.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for UpgradeEligibilityTracker
+ */
+public class UpgradeEligibilityTrackerTest {
+    
+    private AccountRegistry registry;
+    private UpgradeEligibilityTracker tracker;
+    
+    @BeforeEach
+    public void setUp() {
+        registry = new AccountRegistry(4, 4);
+        tracker = new UpgradeEligibilityTracker(16);
+        registry.setPostingListener(tracker);
+    }
+    
+    private List<String> drain() {
+        List<String> crossings = new ArrayList<>();
+        tracker.drain((accountNumber, eligible) -> crossings.add(accountNumber + ":" + eligible));
+        return crossings;
+    }
+    
+    @Test
+    public void testPublishesWhenAccountFirstQualifies() {
+        ConcurrentAccountManager account = registry.open(1000000042L, "Savings", 99000);
+        for (int i = 0; i < 19; i++) {
+            account.deposit(100);
+        }
+        assertTrue(drain().isEmpty());
+        assertFalse(tracker.isEligible(1000000042L));
+        
+        account.deposit(100);
+        assertEquals(List.of("1000000042:true"), drain());
+        assertTrue(tracker.isEligible(1000000042L));
+        
+        account.deposit(100);
+        assertTrue(drain().isEmpty());
+    }
+    
+    @Test
+    public void testPublishesWhenAccountStopsQualifying() {
+        ConcurrentAccountManager account = registry.open(1000000007L, "Savings", 100000);
+        for (int i = 0; i < 20; i++) {
+            account.deposit(1);
+        }
+        account.withdraw(1000);
+        account.deposit(1000);
+        assertEquals(List.of("1000000007:true", "1000000007:false", "1000000007:true"), drain());
+    }
+    
+    @Test
+    public void testUpgradeEndsEligibility() {
+        ConcurrentAccountManager account = registry.open(1000000008L, "Savings", 100000);
+        for (int i = 0; i < 20; i++) {
+            account.deposit(1);
+        }
+        drain();
+        assertTrue(account.upgradeAccount("Premium"));
+        assertEquals(List.of("1000000008:false"), drain());
+        assertEquals(0, tracker.getEligibleCount());
+    }
+    
+    @Test
+    public void testFullQueueDropsAndCounts() {
+        UpgradeEligibilityTracker small = new UpgradeEligibilityTracker(2);
+        registry.setPostingListener(small);
+        for (long n = 1000000001L; n <= 1000000005L; n++) {
+            ConcurrentAccountManager account = registry.open(n, "Savings", 200000);
+            for (int i = 0; i < 20; i++) {
+                account.deposit(1);
+            }
+        }
+        assertEquals(2, small.getPublished());
+        assertEquals(3, small.getDropped());
+        assertEquals(5, small.getEligibleCount());
+        
+        List<Long> numbers = new ArrayList<>();
+        assertEquals(1, small.drain(1, (accountNumber, eligible) -> numbers.add(accountNumber)));
+        assertEquals(1, small.drain((accountNumber, eligible) -> numbers.add(accountNumber)));
+        assertEquals(List.of(1000000001L, 1000000002L), numbers);
+    }
+    
+    @Test
+    public void testRebuildRecordsStateSilently() {
+        AccountRegistry existing = new AccountRegistry(4, 4);
+        ConcurrentAccountManager account = existing.open(1000000003L, "Savings", 150000);
+        for (int i = 0; i < 20; i++) {
+            account.deposit(1);
+        }
+        existing.open(1000000004L, "Regular", 150000);
+        
+        UpgradeEligibilityTracker rebuilt = new UpgradeEligibilityTracker(4);
+        rebuilt.rebuild(existing);
+        assertTrue(rebuilt.isEligible(1000000003L));
+        assertFalse(rebuilt.isEligible(1000000004L));
+        assertEquals(0, rebuilt.getPublished());
+    }
+    
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        UpgradeEligibilityTracker large = new UpgradeEligibilityTracker(1 << 12);
+        registry.setPostingListener(large);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = 1000000000L + t * 1000L;
+            Thread thread = new Thread(() -> {
+                for (long n = base; n < base + 200; n++) {
+                    ConcurrentAccountManager account = registry.open(n, "Savings", 100000);
+                    for (int i = 0; i < 20; i++) {
+                        account.deposit(1);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(800, large.drain((accountNumber, eligible) -> assertTrue(eligible)));
+        assertEquals(0, large.getDropped());
+        assertThrows(IllegalArgumentException.class, () -> new UpgradeEligibilityTracker(0));
+    }
+}